@@ -2,34 +2,55 @@ package yokwe.util;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
 import java.io.Writer;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.LoggerFactory;
 
@@ -56,25 +77,45 @@ public class CSVUtil {
 	public static final LocalDateTime NULL_LOCAL_DATE_TIME = LocalDateTime.of(NULL_LOCAL_DATE, NULL_LOCAL_TIME);
 
 	private static class ClassInfo {
-		private static Map<String, ClassInfo> map = new TreeMap<>();
+		private static final ClassValueCache<ClassInfo> cache = new ClassValueCache<>(ClassInfo::new);
 		
 		static ClassInfo get(Class<?> clazz) {
-			String key = clazz.getName();
-			if (map.containsKey(key)) {
-				return map.get(key);
-			} else {
-				ClassInfo value = new ClassInfo(clazz);
-				map.put(key, value);
-				return value;
-			}
+			return cache.get(clazz);
 		}
 
-		final Class<?>    clazz;
-		final FieldInfo[] fieldInfos;
-		final String[]    names;
+		final Class<?>      clazz;
+		final MethodHandle  constructor; // null if clazz has no accessible default constructor
+		final FieldInfo[]   fieldInfos;  // null if clazz has codec
+		final String[]      names;
+		final StringPool[]  pools;       // string pool of field. null if no field has pool
+		final Codec<Object> codec;       // null if no codec is generated for clazz
 		ClassInfo(Class<?> value) {
 			clazz = value;
 			
+			{
+				@SuppressWarnings("unchecked")
+				Codec<Object> generated = ClassUtil.getCodec(clazz, Codec.SUFFIX, Codec.class);
+				codec = generated;
+			}
+			if (codec != null) {
+				// generated codec replaces reflection
+				constructor = null;
+				fieldInfos  = null;
+				names       = codec.names().clone();
+				pools       = codec.pools();
+				return;
+			}
+			
+			{
+				MethodHandle methodHandle;
+				try {
+					methodHandle = lookup.unreflectConstructor(clazz.getDeclaredConstructor()).asType(MethodType.methodType(Object.class));
+				} catch (NoSuchMethodException | IllegalAccessException e) {
+					methodHandle = null;
+				}
+				constructor = methodHandle;
+			}
+			
 			List<FieldInfo> list = new ArrayList<>();
 			for(Field field: clazz.getDeclaredFields()) {
 				// Skip static field
@@ -88,17 +129,251 @@ public class CSVUtil {
 			for(int i = 0; i < names.length; i++) {
 				names[i] = fieldInfos[i].name;
 			}
+			
+			{
+				StringPool[] array = new StringPool[fieldInfos.length];
+				boolean      found = false;
+				for(int i = 0; i < array.length; i++) {
+					array[i] = fieldInfos[i].stringPool;
+					if (array[i] != null) found = true;
+				}
+				pools = found ? array : null;
+			}
+		}
+		
+		Object newInstance() throws Throwable {
+			if (codec != null) return codec.newInstance();
+			// Sanity check
+			if (constructor == null) {
+				logger.error("No accessible default constructor");
+				logger.error("  clazz {}", clazz.getName());
+				throw new UnexpectedException("No accessible default constructor");
+			}
+			return (Object)constructor.invokeExact();
+		}
+	}
+	
+	// Assign value of csv field to field of object
+	@FunctionalInterface
+	private interface Binder {
+		void bind(Object object, String value) throws Throwable;
+	}
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+	
+	// Append value of field of object to record buffer
+	@FunctionalInterface
+	private interface Appender {
+		void append(Object object, StringBuilder sb) throws Throwable;
+	}
+	
+	//
+	// Reader and writer of class generated by yokwe.util.codec.CodecProcessor at compile time.
+	// Generated class is used in place of reflection if exists. Static methods are used by both generated code and reflection.
+	//
+	public interface Codec<E> {
+		String SUFFIX = "CSVCodec";
+		
+		// name of column in order of field
+		String[] names();
+		// string pool of field. null if no field has pool
+		StringPool[] pools();
+		E newInstance();
+		// columnIndex is null if order of column is same as field
+		void bind(E object, String[] values, int[] columnIndex);
+		// append fields of object separated by comma
+		void append(E object, StringBuilder sb);
+		
+		public static BigDecimal toBigDecimal(String value) {
+			return new BigDecimal(removeComma(value));
+		}
+		public static int toInt(String value) {
+			return value.isEmpty() ? 0 : Integer.parseInt(removeComma(value));
+		}
+		public static long toLong(String value) {
+			return value.isEmpty() ? 0 : Long.parseLong(removeComma(value));
+		}
+		public static double toDouble(String value) {
+			return value.isEmpty() ? 0 : Double.parseDouble(removeComma(value));
+		}
+		public static boolean toBoolean(String value) {
+			return value.isEmpty() ? false : Boolean.parseBoolean(value);
+		}
+		public static LocalDateTime toLocalDateTime(String value) {
+			if (value.isEmpty() || value.equals("0")) {
+				return NULL_LOCAL_DATE_TIME;
+			} else if (isDigits(value)) {
+				return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(value)), ZoneOffset.UTC);
+			} else {
+				return LocalDateTime.parse(value);
+			}
+		}
+		public static LocalDate toLocalDate(String value) {
+			if (value.isEmpty() || value.equals("0")) {
+				return NULL_LOCAL_DATE;
+			} else if (isDigits(value)) {
+				return LocalDate.ofInstant(Instant.ofEpochMilli(Long.parseLong(value)), ZoneOffset.UTC);
+			} else {
+				return LocalDate.parse(value);
+			}
+		}
+		public static LocalTime toLocalTime(String value) {
+			return (value.isEmpty() || value.equals("0")) ? NULL_LOCAL_TIME : LocalTime.parse(value);
+		}
+		public static <T extends Enum<T>> Map<String, T> enumMap(Class<T> clazz) {
+			Map<String, T> ret = new TreeMap<>();
+			for(T e: clazz.getEnumConstants()) {
+				ret.put(e.toString(), e);
+			}
+			return ret;
+		}
+		public static <T> T toEnum(Map<String, T> enumMap, String clazzName, String value) {
+			T ret = enumMap.get(value);
+			if (ret == null) {
+				logger.error("Unknow enum value  {}  {}", clazzName, value);
+				throw new UnexpectedException("Unknow enum value");
+			}
+			return ret;
+		}
+		
+		public static void appendFixed(StringBuilder sb, double value, int digits, String format) {
+			CSVUtil.appendFixed(sb, value, digits, format);
+		}
+		public static void appendLocalDate(StringBuilder sb, LocalDate value) {
+			CSVUtil.appendLocalDate(sb, value);
+		}
+		public static void appendField(StringBuilder sb, String value) {
+			CSVUtil.appendField(sb, value);
+		}
+		public static <T> T checkNull(T value, String clazzName, String name) {
+			if (value == null) {
+				logger.error("field has null value");
+				logger.error("  field  {}  {}", clazzName, name);
+				throw new UnexpectedException("field has null value");
+			}
+			return value;
+		}
+	}
+	
+	private static final long[] POWER_OF_TEN = {
+		1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+	};
+	// Same output as String.format(Locale.US, format, value) without allocation
+	private static void appendFixed(StringBuilder sb, double value, int digits, String format) {
+		if (digits < POWER_OF_TEN.length) {
+			long   power  = POWER_OF_TEN[digits];
+			double scaled = Math.abs(value) * power;
+			// false for NaN and Infinity
+			if (scaled < 1e12) {
+				double floor    = Math.floor(scaled);
+				double fraction = scaled - floor;
+				// Formatter rounds decimal expression of value with HALF_UP.
+				// If fraction is close to 0.5, use Formatter to get exactly same result.
+				if (1e-3 < Math.abs(fraction - 0.5)) {
+					long number = (long)floor + (0.5 < fraction ? 1 : 0);
+					long integer = number / power;
+					long decimal = number % power;
+					
+					if (Double.doubleToRawLongBits(value) < 0) sb.append('-');
+					sb.append(integer).append('.');
+					for(long q = power / 10; 1 < q && decimal < q; q /= 10) {
+						sb.append('0');
+					}
+					sb.append(decimal);
+					return;
+				}
+			}
+		}
+		sb.append(String.format(Locale.US, format, value));
+	}
+	// Same output as LocalDate.toString()
+	private static void appendLocalDate(StringBuilder sb, LocalDate value) {
+		int year  = value.getYear();
+		int month = value.getMonthValue();
+		int day   = value.getDayOfMonth();
+		if (year < 1000 || 9999 < year) {
+			sb.append(value.toString());
+		} else {
+			sb.append(year).append(month < 10 ? "-0" : "-").append(month).append(day < 10 ? "-0" : "-").append(day);
+		}
+	}
+	// Append value with quote if necessary. Check chars of value in single pass.
+	private static void appendField(StringBuilder sb, String value) {
+		int length = value.length();
+		int i = 0;
+		for(; i < length; i++) {
+			char c = value.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r' || c == ';') break;
+		}
+		if (i == length) {
+			sb.append(value);
+			return;
+		}
+		
+		sb.append('"');
+		sb.append(value, 0, i);
+		for(; i < length; i++) {
+			char c = value.charAt(i);
+			switch(c) {
+			case '"':
+				sb.append('"').append('"');
+				break;
+			case '\n':
+				sb.append('\\').append('n');
+				break;
+			case '\r':
+				sb.append('\\').append('r');
+				break;
+			default:
+				sb.append(c);
+				break;
+			}
+		}
+		sb.append('"');
+	}
+	
+	// Reusable buffer to build one record
+	private static final class RecordBuffer {
+		private static final String NEW_LINE = System.lineSeparator();
+		
+		final StringBuilder sb    = new StringBuilder(256);
+		      char[]        chars = new char[256];
+		
+		void writeTo(Writer writer) throws IOException {
+			sb.append(NEW_LINE);
+			int length = sb.length();
+			if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+			sb.getChars(0, length, chars, 0);
+			writer.write(chars, 0, length);
+			sb.setLength(0);
+		}
+	}
+	
+	private static String removeComma(String value) {
+		return value.indexOf(',') == -1 ? value : value.replace(",", "");
+	}
+	private static boolean isDigits(String value) {
+		int length = value.length();
+		if (length == 0) return false;
+		for(int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || '9' < c) return false;
 		}
+		return true;
 	}
+	
 	private static class FieldInfo {
 		final Field    field;
 		final String   name;
 		final Class<?> clazz;
 		final String   clazzName;
 		final String   format;
+		final int      digits; // 0 if no DecimalPlaces
 		
 		final Map<String, Enum<?>> enumMap;
 		final Method               getInstance;
+		final Binder               binder;
+		final Appender             appender;
+		final StringPool           stringPool; // null if field has no Intern annotation
 
 		
 		FieldInfo(Field value) {
@@ -113,11 +388,12 @@ public class CSVUtil {
 			DecimalPlaces decimalPlaces = field.getDeclaredAnnotation(DecimalPlaces.class);
 			if (decimalPlaces == null) {
 				format = null;
+				digits = 0;
 			} else {
 				switch(clazzName) {
 				case "double":
 				case "real":
-					int digits = decimalPlaces.value();
+					digits = decimalPlaces.value();
 					if (digits <= 0) {
 						logger.error("Unexpected digits value");
 						logger.error("  digits {}", digits);
@@ -166,198 +442,489 @@ public class CSVUtil {
 				}
 				this.getInstance = method;
 			}
-
+			
+			stringPool = StringPool.of(field);
+			
+			binder   = buildBinder();
+			appender = buildAppender();
+		}
+		
+		private Appender buildAppender() {
+			final MethodHandle getter;
+			try {
+				getter = lookup.unreflectGetter(field);
+			} catch (IllegalAccessException e) {
+				// Field is not readable. Report error when the field is actually written.
+				return (o, sb) -> {
+					logger.error("Field is not readable");
+					logger.error("  field  {}", field.toString());
+					throw new UnexpectedException("Field is not readable");
+				};
+			}
+			
+			switch(clazzName) {
+			case "real":
+			case "double":
+			{
+				final MethodHandle mh = getter.asType(MethodType.methodType(double.class, Object.class));
+				if (format != null) {
+					return (o, sb) -> appendFixed(sb, (double)mh.invokeExact(o), digits, format);
+				} else {
+					return (o, sb) -> sb.append((double)mh.invokeExact(o));
+				}
+			}
+			case "int":
+			{
+				final MethodHandle mh = getter.asType(MethodType.methodType(int.class, Object.class));
+				return (o, sb) -> sb.append((int)mh.invokeExact(o));
+			}
+			case "long":
+			{
+				final MethodHandle mh = getter.asType(MethodType.methodType(long.class, Object.class));
+				return (o, sb) -> sb.append((long)mh.invokeExact(o));
+			}
+			case "boolean":
+			{
+				final MethodHandle mh = getter.asType(MethodType.methodType(boolean.class, Object.class));
+				return (o, sb) -> sb.append((boolean)mh.invokeExact(o));
+			}
+			case "java.lang.String":
+			{
+				final MethodHandle mh = getter.asType(MethodType.methodType(String.class, Object.class));
+				return (o, sb) -> appendField(sb, checkNull((String)mh.invokeExact(o)));
+			}
+			case "java.math.BigDecimal":
+			{
+				// To avoid scientific expression of value, need to use toPlainString().
+				// Plain string of BigDecimal has no char to be quoted.
+				final MethodHandle mh = getter.asType(MethodType.methodType(BigDecimal.class, Object.class));
+				return (o, sb) -> sb.append(checkNull((BigDecimal)mh.invokeExact(o)).toPlainString());
+			}
+			case "java.time.LocalDate":
+			{
+				final MethodHandle mh = getter.asType(MethodType.methodType(LocalDate.class, Object.class));
+				return (o, sb) -> appendLocalDate(sb, checkNull((LocalDate)mh.invokeExact(o)));
+			}
+			default:
+			{
+				final MethodHandle mh = getter.asType(MethodType.methodType(Object.class, Object.class));
+				return (o, sb) -> appendField(sb, checkNull((Object)mh.invokeExact(o)).toString());
+			}
+			}
+		}
+		private <T> T checkNull(T value) {
+			return Codec.checkNull(value, clazzName, name);
+		}
+		
+		private Binder buildBinder() {
+			final MethodHandle setter;
+			try {
+				setter = lookup.unreflectSetter(field);
+			} catch (IllegalAccessException e) {
+				// Field is not assignable. Report error when the field is actually read.
+				return (o, v) -> {
+					logger.error("Field is not assignable");
+					logger.error("  field  {}", field.toString());
+					throw new UnexpectedException("Field is not assignable");
+				};
+			}
+			
+			switch(clazzName) {
+			case "java.math.BigDecimal":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, BigDecimal.class));
+				return (o, v) -> { mh.invokeExact(o, Codec.toBigDecimal(v)); };
+			}
+			case "int":
+			case "java.lang.Integer":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+				return (o, v) -> { mh.invokeExact(o, Codec.toInt(v)); };
+			}
+			case "long":
+			case "java.lang.Long":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+				return (o, v) -> { mh.invokeExact(o, Codec.toLong(v)); };
+			}
+			case "double":
+			case "java.lang.Double":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, double.class));
+				return (o, v) -> { mh.invokeExact(o, Codec.toDouble(v)); };
+			}
+			case "boolean":
+			case "java.lang.Boolean":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+				return (o, v) -> { mh.invokeExact(o, Codec.toBoolean(v)); };
+			}
+			case "java.lang.String":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, String.class));
+				return (o, v) -> { mh.invokeExact(o, v); };
+			}
+			case "java.time.LocalDateTime":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, LocalDateTime.class));
+				return (o, v) -> { mh.invokeExact(o, Codec.toLocalDateTime(v)); };
+			}
+			case "java.time.LocalDate":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, LocalDate.class));
+				return (o, v) -> { mh.invokeExact(o, Codec.toLocalDate(v)); };
+			}
+			case "java.time.LocalTime":
+			{
+				final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, LocalTime.class));
+				return (o, v) -> { mh.invokeExact(o, Codec.toLocalTime(v)); };
+			}
+			default:
+				break;
+			}
+			
+			final MethodHandle mh = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			if (enumMap != null) {
+				return (o, v) -> { mh.invokeExact(o, (Object)Codec.toEnum(enumMap, clazzName, v)); };
+			} else if (getInstance != null) {
+				final MethodHandle factory;
+				try {
+					factory = lookup.unreflect(getInstance).asType(MethodType.methodType(Object.class, String.class));
+				} catch (IllegalAccessException e) {
+					String exceptionName = e.getClass().getSimpleName();
+					logger.error("{} {}", exceptionName, e);
+					throw new UnexpectedException(exceptionName, e);
+				}
+				return (o, v) -> { mh.invokeExact(o, (Object)factory.invokeExact(v)); };
+			} else {
+				return (o, v) -> {
+					logger.error("Unexptected fieldInfo.clazzName {}", clazzName);
+					throw new UnexpectedException("Unexptected fieldInfo.clazzName");
+				};
+			}
 		}
 	}
 	
-	public static String[] parseLine(BufferedReader br) {
-		try {			
-			// Peek one char to check end of stream
-			{
-				br.mark(1);
-				int firstChar = br.read();
-				br.reset();
-				if (firstChar == -1) return null;
+	//
+	// Tokenizer scans reusable char array window with index arithmetic.
+	// Values of last record are kept in reusable array. Use toArray() to get copy of values.
+	//
+	static final class Tokenizer implements Closeable {
+		// Receives selected field as range of char array. Contents of array is valid only in the call.
+		@FunctionalInterface
+		interface FieldHandler {
+			void field(int index, char[] array, int start, int end);
+		}
+		
+		private final Reader reader; // null for fixed char array
+		private final char[] buffer;
+		private int          pos;
+		private int          limit;
+		
+		private char[]       field;
+		private int          fieldLength;
+		
+		private String[]     values;
+		private int          count;
+		
+		private boolean[]    select;  // null for all fields. Value of not selected field is null
+		private StringPool[] pools;   // null for no pool. Value of field with pool is shared string in pool
+		private FieldHandler handler; // null for values
+		
+		Tokenizer(Reader reader, int bufferSize) {
+			this.reader = reader;
+			this.buffer = new char[bufferSize];
+			this.pos    = 0;
+			this.limit  = 0;
+			this.field  = new char[256];
+			this.values = new String[16];
+			this.count  = 0;
+		}
+		Tokenizer(Reader reader) {
+			this(reader, BUFFER_SIZE);
+		}
+		Tokenizer(char[] array, int start, int end) {
+			this.reader = null;
+			this.buffer = array;
+			this.pos    = start;
+			this.limit  = end;
+			this.field  = new char[256];
+			this.values = new String[16];
+			this.count  = 0;
+		}
+		
+		int count() {
+			return count;
+		}
+		String[] values() {
+			return values;
+		}
+		String[] toArray() {
+			return Arrays.copyOf(values, count);
+		}
+		
+		// Only selected field is passed to handler or stored to values. Not selected field is skipped without allocation.
+		void select(boolean[] newValue) {
+			select = newValue;
+		}
+		void pools(StringPool[] newValue) {
+			pools = newValue;
+		}
+		void handler(FieldHandler newValue) {
+			handler = newValue;
+		}
+		private boolean isSelected(int index) {
+			return select == null || (index < select.length && select[index]);
+		}
+		
+		@Override
+		public void close() {
+			if (reader == null) return;
+			try {
+				reader.close();
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			}
+		}
+		
+		private boolean fill() {
+			if (reader == null) return false;
+			try {
+				int n;
+				do {
+					n = reader.read(buffer, 0, buffer.length);
+				} while (n == 0);
+				if (n == -1) return false;
+				pos   = 0;
+				limit = n;
+				return true;
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			}
+		}
+		private int read() {
+			if (pos < limit || fill()) return buffer[pos++];
+			return -1;
+		}
+		
+		// Returns true if stream has no more char
+		boolean isEndOfStream() {
+			return !(pos < limit || fill());
+		}
+		// Skip byte order mark if exists
+		void skipByteOrderMark() {
+			if (pos < limit || fill()) {
+				if (buffer[pos] == 0xFEFF) pos++;
+			}
+		}
+		
+		private void append(char c) {
+			if (fieldLength == field.length) field = Arrays.copyOf(field, fieldLength * 2);
+			field[fieldLength++] = c;
+		}
+		private void append(int start, int end) {
+			int length = end - start;
+			if (field.length < fieldLength + length) field = Arrays.copyOf(field, Math.max(fieldLength + length, fieldLength * 2));
+			System.arraycopy(buffer, start, field, fieldLength, length);
+			fieldLength += length;
+		}
+		private void add(char[] array, int start, int end) {
+			int index = count++;
+			if (handler == null) {
+				if (index == values.length) values = Arrays.copyOf(values, index * 2);
+				values[index] = isSelected(index) ? toString(index, array, start, end) : null;
+			} else {
+				if (isSelected(index)) handler.field(index, array, start, end);
+			}
+		}
+		private String toString(int index, char[] array, int start, int end) {
+			StringPool pool = (pools == null || pools.length <= index) ? null : pools[index];
+			return pool == null ? new String(array, start, end - start) : pool.intern(array, start, end);
+		}
+		private void addField() {
+			add(field, 0, fieldLength);
+		}
+		private void addEmpty() {
+			add(field, 0, 0);
+		}
+		
+		private UnexpectedException error(String message) {
+			logger.error(message);
+			logger.error("  list   !{}!", Arrays.asList(values).subList(0, Math.min(count, values.length)));
+			logger.error("  field  !{}!", new String(field, 0, fieldLength));
+			return new UnexpectedException(message);
+		}
+		private void readNewLine() {
+			int c = read();
+			if (c == -1) {
+				throw error("Unexpected end of stream");
+			} else if (c != '\n') {
+				logger.error("Unexpected char {}", String.format("%X", c));
+				throw new UnexpectedException("Unexpected char");
 			}
+		}
+		
+		// Returns number of values in record. Returns -1 for end of stream.
+		int next() {
+			count = 0;
+			
+			int c = read();
+			if (c == -1) return -1;
 			
-			List<String> list  = new ArrayList<>();
-			StringBuffer field = new StringBuffer();
-			boolean endOfRecord = false;
 			for(;;) {
-				if (endOfRecord) break;
-				
-				int fieldFirstChar = br.read();
-				if (fieldFirstChar == -1) {
+				if (c == -1) {
 					// end of record -- last field of last line without \r\n
-					field.setLength(0);
-					list.add("");
-					break;
-				} else if (fieldFirstChar == '\r') {
+					addEmpty();
+					return count;
+				} else if (c == '\r') {
 					// end of record -- last field of record has no contents
-					int c2 = br.read();
-					if (c2 == -1) {
-						logger.error("Unexpected end of stream");
-						logger.error("  list   !{}!", list);
-						logger.error("  field  !{}!", field.toString());
-						throw new UnexpectedException("Unexpected end of stream");
-					} else if (c2 == '\n') {
-						field.setLength(0);
-						list.add("");
-						break;
-					} else {
-						logger.error("Unexpected char {}", String.format("%X", c2));
-						throw new UnexpectedException("Unexpected char");
-					}
-				} else if (fieldFirstChar == '\n') {
+					readNewLine();
+					addEmpty();
+					return count;
+				} else if (c == '\n') {
 					// end of record -- last field of record has no contents
-					field.setLength(0);
-					list.add("");
-					break;
-				} else if (fieldFirstChar == ',') {
+					addEmpty();
+					return count;
+				} else if (c == ',') {
 					// end of field -- empty field
-					field.setLength(0);
-					list.add("");
-//					logger.debug("emp field  \"\"");
-				} else if (fieldFirstChar == '"') {
+					addEmpty();
+				} else if (c == '"') {
 					// quoted field
-					field.setLength(0);
-					
-					for(;;) {
-						int c = br.read();
-						if (c == -1) {
-							logger.error("Unexpected end of stream");
-							logger.error("  list   !{}!", list);
-							logger.error("  field  !{}!", field.toString());
-							throw new UnexpectedException("Unexpected end of stream");
-						} else if (c == '"') {
-							// end of field, end of record or double quote
-							int c2 = br.read();
-							if (c2 == -1) {
-								// Special handling of last record with no \n
-								endOfRecord = true;
-								break;
-							} else if (c2 == ',') {
-								// end of field
-								break;
-							} else if (c2 == '\r') {
-								// end of record
-								int c3 = br.read();
-								if (c3 == -1) {
-									logger.error("Unexpected end of stream");
-									logger.error("  list   !{}!", list);
-									logger.error("  field  !{}!", field.toString());
-									throw new UnexpectedException("Unexpected end of stream");
-								} else if (c3 == '\n') {
-									endOfRecord = true;
-									break;
-								} else {
-									logger.error("Unexpected char {}", String.format("%X", c3));
-									throw new UnexpectedException("Unexpected char");
-								}
-							} else if (c2 == '\n') {
-								// end of record
-								endOfRecord = true;
-								break;
-							} else if (c2 == '"') {
-								// double quote
-								field.append('"');
-							} else {
-								logger.error("Unexpected back slash escape  {}", c2);
-								logger.error("  list   !{}!", list);
-								logger.error("  field  !{}!", field.toString());
-								throw new UnexpectedException("Unexpected back slash escape");
-							}
-						} else if (c == '\\') {
-							// back slash escape
-							int c2 = br.read();
-							if (c2 == -1) {
-								logger.error("Unexpected end of stream");
-								logger.error("  list   !{}!", list);
-								logger.error("  field  !{}!", field.toString());
-								throw new UnexpectedException("Unexpected end of stream");
-							} else if (c2 == 'n') {
-								// \n
-								field.append('\n');
-							} else if (c2 == 'r') {
-								// \r
-								field.append('\r');
-							} else {
-								logger.error("Unexpected back slash escape  {}", c2);
-								logger.error("  list   !{}!", list);
-								logger.error("  field  !{}!", field.toString());
-								throw new UnexpectedException("Unexpected back slash escape");
-							}
-						} else {
-							field.append((char)c);
-						}
-					}
-					// append field to list
-					list.add(field.toString());
-//					logger.debug("quo field  {}!", field.toString());
+					if (quotedField()) return count;
 				} else {
-					// ordinary field
-					field.setLength(0);
-					
-					field.append((char)fieldFirstChar);
-					for(;;) {
-						int c = br.read();
-						if (c == -1) {
-							// Special handling of last record with no \n
-							endOfRecord = true;
-							break;
-						} else if (c == ',') {
-							// end of field
-							break;
-						} else if (c == '\r') {
-							// end of record
-							int c2 = br.read();
-							if (c2 == -1) {
-								logger.error("Unexpected end of stream");
-								logger.error("  list   !{}!", list);
-								logger.error("  field  !{}!", field.toString());
-								throw new UnexpectedException("Unexpected end of stream");
-							} else if (c2 == '\n') {
-								endOfRecord = true;
-								break;
-							} else {
-								logger.error("Unexpected char {}", String.format("%X", c2));
-								throw new UnexpectedException("Unexpected char");
-							}
-						} else if (c == '\n') {
-							// end of record
-							endOfRecord = true;
-							break;
+					// ordinary field -- unread first char
+					pos--;
+					if (ordinaryField()) return count;
+				}
+				c = read();
+			}
+		}
+		
+		// Returns true for end of record
+		private boolean ordinaryField() {
+			final boolean selected = isSelected(count);
+			fieldLength = 0;
+			for(;;) {
+				final char[] buf   = buffer;
+				final int    start = pos;
+				final int    end   = limit;
+				for(int i = start; i < end; i++) {
+					char c = buf[i];
+					if (c == ',' || c == '\n' || c == '\r') {
+						if (fieldLength == 0) {
+							add(buf, start, i);
 						} else {
-							field.append((char)c);
+							append(start, i);
+							addField();
 						}
+						pos = i + 1;
+						
+						if (c == ',') return false;
+						if (c == '\r') readNewLine();
+						return true;
 					}
-					// append field to list
-					list.add(field.toString());
-//					logger.debug("ord field  {}!", field.toString());
+				}
+				// reached end of window in middle of field
+				if (selected) append(start, end);
+				pos = end;
+				if (!fill()) {
+					// Special handling of last record with no \n
+					addField();
+					return true;
 				}
 			}
-			
-			// Remove byte order mark from list element
-			for(String string: list) {
-				string = StringUtil.removeBOM(string);
+		}
+		
+		// Returns true for end of record
+		private boolean quotedField() {
+			final boolean selected = isSelected(count);
+			fieldLength = 0;
+			for(;;) {
+				final char[] buf   = buffer;
+				final int    start = pos;
+				final int    end   = limit;
+				int i = start;
+				while(i < end) {
+					char c = buf[i];
+					if (c == '"' || c == '\\') break;
+					i++;
+				}
+				if (selected) append(start, i);
+				pos = i;
+				if (i == end) {
+					// reached end of window in middle of field
+					if (fill()) continue;
+					throw error("Unexpected end of stream");
+				}
+				
+				char c = buf[pos++];
+				if (c == '"') {
+					// end of field, end of record or double quote
+					int c2 = read();
+					if (c2 == -1) {
+						// Special handling of last record with no \n
+						addField();
+						return true;
+					} else if (c2 == ',') {
+						// end of field
+						addField();
+						return false;
+					} else if (c2 == '\r') {
+						// end of record
+						readNewLine();
+						addField();
+						return true;
+					} else if (c2 == '\n') {
+						// end of record
+						addField();
+						return true;
+					} else if (c2 == '"') {
+						// double quote
+						if (selected) append('"');
+					} else {
+						logger.error("Unexpected back slash escape  {}", c2);
+						throw error("Unexpected back slash escape");
+					}
+				} else {
+					// back slash escape
+					int c2 = read();
+					if (c2 == -1) {
+						throw error("Unexpected end of stream");
+					} else if (c2 == 'n') {
+						// \n
+						if (selected) append('\n');
+					} else if (c2 == 'r') {
+						// \r
+						if (selected) append('\r');
+					} else {
+						logger.error("Unexpected back slash escape  {}", c2);
+						throw error("Unexpected back slash escape");
+					}
+				}
 			}
-//			logger.debug("list  {}", list);
-			return list.toArray(new String[0]);
-		} catch (IOException e) {
-			String exceptionName = e.getClass().getSimpleName();
-			logger.error("{} {}", exceptionName, e);
-			throw new UnexpectedException(exceptionName, e);
 		}
 	}
+	
+	// Consume exactly one record from br. Use read(Class) for bulk read.
+	public static String[] parseLine(BufferedReader br) {
+		Tokenizer tokenizer = new Tokenizer(br, 1);
+		return tokenizer.next() == -1 ? null : tokenizer.toArray();
+	}
 	public static String[] parseLine(String string) {
-		StringReader   sr = new StringReader(string);
-		BufferedReader br = new BufferedReader(sr);
-		return parseLine(br);
+		char[] array = string.toCharArray();
+		Tokenizer tokenizer = new Tokenizer(array, 0, array.length);
+		return tokenizer.next() == -1 ? null : tokenizer.toArray();
 	}
 	
 	
 	private static class Context {
-		private boolean withHeader = true;
+		private boolean withHeader        = true;
+		private boolean withColumnMapping = false; // map field to column by name in header
+		private int     flushCount        = 0; // flush session every flushCount records. 0 means no periodic flush
 	}
 	
 	public static <E> Read<E> read(Class<E> clazz) {
@@ -375,6 +942,11 @@ public class CSVUtil {
 			context.withHeader = newValue;
 			return this;
 		}
+		// Map field to column by ColumnName in header. Order of column is not significant and extra column is skipped.
+		public Read<E> withColumnMapping(boolean newValue) {
+			context.withColumnMapping = newValue;
+			return this;
+		}
 		
 		public static String toStringAsHexChar(String string) {
 			StringBuilder sb = new StringBuilder();
@@ -387,19 +959,71 @@ public class CSVUtil {
 		}
 
 
-		private void readHeader(BufferedReader br) {
-			String[] names = parseLine(br);
-			if (names == null) {
+		// Mapping from field of class to column in record
+		private static final class Projection {
+			final int[]        columnIndex; // null for same order as field
+			final boolean[]    select;      // null for all column
+			final int          minCount;    // minimum number of column in record
+			final StringPool[] pools;       // string pool of column. null for no pool
+			
+			Projection(int[] columnIndex, boolean[] select, int minCount, StringPool[] pools) {
+				this.columnIndex = columnIndex;
+				this.select      = select;
+				this.minCount    = minCount;
+				this.pools       = pools;
+			}
+			
+			void apply(Tokenizer tokenizer) {
+				tokenizer.select(select);
+				tokenizer.pools(pools);
+			}
+		}
+		private Projection identity() {
+			return new Projection(null, null, classInfo.names.length, classInfo.pools);
+		}
+		// Returns null if no field has string pool
+		private StringPool[] pools(int[] columnIndex, int columnCount) {
+			if (classInfo.pools == null) return null;
+			StringPool[] ret = new StringPool[columnCount];
+			for(int i = 0; i < columnIndex.length; i++) {
+				ret[columnIndex[i]] = classInfo.pools[i];
+			}
+			return ret;
+		}
+
+		private Projection readHeader(Tokenizer tokenizer) {
+			if (tokenizer.next() == -1) {
 				logger.error("Unexpected EOF");
 				throw new UnexpectedException("Unexpected EOF");
 			}
+			String[] names = tokenizer.toArray();
+			
+			if (context.withColumnMapping) {
+				List<String> nameList    = Arrays.asList(names);
+				int[]        columnIndex = new int[classInfo.names.length];
+				boolean[]    select      = new boolean[names.length];
+				int          minCount    = 0;
+				for(int i = 0; i < columnIndex.length; i++) {
+					int index = nameList.indexOf(classInfo.names[i]);
+					if (index == -1) {
+						logger.error("Unexpected name  {}  {}", i, classInfo.names[i]);
+						logger.error("classInfo  {}", classInfo.clazz.getName());
+						logger.error("names      {}", nameList);
+						throw new UnexpectedException("Unexpected name");
+					}
+					columnIndex[i] = index;
+					select[index]  = true;
+					minCount = Math.max(minCount, index + 1);
+				}
+				return new Projection(columnIndex, select, minCount, pools(columnIndex, names.length));
+			}
 			
 			// Sanity check
 			if (classInfo.names.length != names.length) {
 				logger.error("Unexpected length  {}  {}  {}", classInfo.names.length, names.length, Arrays.asList(names));
 				logger.error("classInfo  {}", classInfo.clazz.getName());
 				logger.error("====");
-				for(int j = 0; j < classInfo.fieldInfos.length; j++) {
+				for(int j = 0; j < classInfo.names.length; j++) {
 					logger.info("  clasInfo   {}  {}", j, classInfo.names[j]);
 				}
 				logger.error("====");
@@ -413,7 +1037,7 @@ public class CSVUtil {
 				logger.error("Unexpected name  {}  {}  {}", i, names[i], classInfo.names[i]);
 				logger.error("classInfo  {}", classInfo.clazz.getName());
 				logger.error("====");
-				for(int j = 0; j < classInfo.fieldInfos.length; j++) {
+				for(int j = 0; j < classInfo.names.length; j++) {
 					logger.info("  clasInfo   {}  {}  {}", j, classInfo.names[j], toStringAsHexChar(classInfo.names[j]));
 				}
 				logger.error("====");
@@ -422,182 +1046,217 @@ public class CSVUtil {
 				}
 				throw new UnexpectedException("Unexpected name");
 			}
+			return identity();
 		}
 
-		private E read(BufferedReader br) {
+		private E read(Tokenizer tokenizer, Projection projection) {
 			try {
-				String[] values = parseLine(br);
-				if (values == null) return null;
+				int count = tokenizer.next();
+				if (count == -1) return null;
+				// Sanity check
+				if (count < projection.minCount) {
+					logger.error("Unexpected count  {}  {}  {}", projection.minCount, count, Arrays.asList(tokenizer.toArray()));
+					logger.error("classInfo  {}", classInfo.clazz.getName());
+					throw new UnexpectedException("Unexpected count");
+				}
+				String[] values = tokenizer.values();
 
 				@SuppressWarnings("unchecked")
-				Class<E> clazz = (Class<E>)classInfo.clazz;
-				
-				E data = clazz.getDeclaredConstructor().newInstance();
+				E data = (E)classInfo.newInstance();
 				
-				FieldInfo[] fieldInfos = classInfo.fieldInfos;
-				for(int i = 0; i < fieldInfos.length; i++) {
-					FieldInfo fieldInfo = fieldInfos[i];
-
-					String value = values[i];
-
-					switch(fieldInfo.clazzName) {
-					case "java.math.BigDecimal":
-					{
-						if (value.contains(",")) {
-							value = value.replace(",", "");
-						}
-						BigDecimal bigDecimalValue = new BigDecimal(value);
-						fieldInfo.field.set(data, bigDecimalValue);
+				FieldInfo[] fieldInfos  = classInfo.fieldInfos;
+				int[]       columnIndex = projection.columnIndex;
+				if (classInfo.codec != null) {
+					classInfo.codec.bind(data, values, columnIndex);
+				} else if (columnIndex == null) {
+					for(int i = 0; i < fieldInfos.length; i++) {
+						fieldInfos[i].binder.bind(data, values[i]);
 					}
-						break;
-					case "int":
-					case "java.lang.Integer":
-					{
-						if (value.contains(",")) {
-							value = value.replace(",", "");
-						}
-						int intValue = value.isEmpty() ? 0 : Integer.parseInt(value);
-						fieldInfo.field.set(data, intValue);
-					}
-						break;
-					case "long":
-					case "java.lang.Long":
-					{
-						if (value.contains(",")) {
-							value = value.replace(",", "");
-						}
-						long longValue = value.isEmpty() ? 0 : Long.parseLong(value);
-						fieldInfo.field.set(data, longValue);
-					}
-						break;
-					case "double":
-					case "java.lang.Double":
-					{
-						if (value.contains(",")) {
-							value = value.replace(",", "");
-						}
-						double doubleValue = value.isEmpty() ? 0 : Double.parseDouble(value);
-						fieldInfo.field.set(data, doubleValue);
-					}
-						break;
-					case "boolean":
-					case "java.lang.Boolean":
-					{
-						boolean booleanValue = value.isEmpty() ? false : Boolean.parseBoolean(value);
-						fieldInfo.field.set(data, booleanValue);
-					}
-						break;
-					case "java.lang.String":
-						fieldInfo.field.set(data, value);
-						break;
-					case "java.time.LocalDateTime":
-					{
-						final LocalDateTime localDateTime;
-						
-						if (value.isEmpty() || value.equals("0")) {
-							localDateTime = NULL_LOCAL_DATE_TIME;
-						} else {
-							if (value.matches("\\d+")) {
-								long number = Long.parseLong(value);
-								localDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(number), ZoneOffset.UTC);
-							} else {
-								localDateTime = LocalDateTime.parse(value);
-							}
-						}
-						
-						fieldInfo.field.set(data, localDateTime);
-					}
-						break;
-					case "java.time.LocalDate":
-					{
-						final LocalDate localDate;
-						
-						if (value.isEmpty() || value.equals("0")) {
-							localDate = NULL_LOCAL_DATE;
-						} else {
-							if (value.matches("\\d+")) {
-								long number = Long.parseLong(value);
-								localDate = LocalDate.ofInstant(Instant.ofEpochMilli(number), ZoneOffset.UTC);
-							} else {
-								localDate = LocalDate.parse(value);
-							}
-						}
-						
-						fieldInfo.field.set(data, localDate);
-					}
-						break;
-					case "java.time.LocalTime":
-					{
-						final LocalTime localTime;
-						
-						if (value.isEmpty() || value.equals("0")) {
-							localTime = NULL_LOCAL_TIME;
-						} else {
-							localTime = LocalTime.parse(value);
-						}
-						
-						fieldInfo.field.set(data, localTime);
-					}
-						break;
-					default:
-						if (fieldInfo.enumMap != null) {
-							if (fieldInfo.enumMap.containsKey(value)) {
-								fieldInfo.field.set(data, fieldInfo.enumMap.get(value));
-							} else {
-								logger.error("Unknow enum value  {}  {}", fieldInfo.clazzName, value);
-								throw new UnexpectedException("Unknow enum value");
-							}
-						} else if (fieldInfo.getInstance != null) {
-							try {
-								Object o = fieldInfo.getInstance.invoke(null, value);
-								fieldInfo.field.set(data, o);
-							} catch (IllegalArgumentException | InvocationTargetException e) {
-								String exceptionName = e.getClass().getSimpleName();
-								logger.error("{} {}", exceptionName, e);
-								throw new UnexpectedException(exceptionName, e);
-							}
-						} else {
-							logger.error("Unexptected fieldInfo.clazzName {}", fieldInfo.clazzName);
-							throw new UnexpectedException("Unexptected fieldInfo.clazzName");
-						}
+				} else {
+					for(int i = 0; i < fieldInfos.length; i++) {
+						fieldInfos[i].binder.bind(data, values[columnIndex[i]]);
 					}
 				}
 				
 				return data;
-			} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			} catch (UnexpectedException e) {
+				throw e;
+			} catch (Throwable e) {
 				String exceptionName = e.getClass().getSimpleName();
 				logger.error("{} {}", exceptionName, e);
 				throw new UnexpectedException(exceptionName, e);
 			}
 		}
 
+		// Skip byte order mark and header. Returns null if stream is empty.
+		private Projection readStart(Tokenizer tokenizer) {
+			// Sanity check
+			if (context.withColumnMapping && !context.withHeader) {
+				logger.error("column mapping needs header");
+				throw new UnexpectedException("column mapping needs header");
+			}
+			
+			// Check end of stream and byte order mark
+			if (tokenizer.isEndOfStream()) return null;
+			tokenizer.skipByteOrderMark();
+
+			Projection projection = context.withHeader ? readHeader(tokenizer) : identity();
+			projection.apply(tokenizer);
+			return projection;
+		}
+
 		public List<E> file(Reader reader) {
-			try (BufferedReader br = new BufferedReader(reader, BUFFER_SIZE)) {
-				// Peek one char to check end of stream and byte order mark
-				{
-					br.mark(1);
-					int firstChar = br.read();
-					switch(firstChar) {
-					case -1:
-						// end of stream.
-						return null;
-					case 0xFEFF:
-						// byte order mark
-						break;
-					default:
-						// resets the stream to the most recent mark.
-						br.reset();
-						break;
-					}
+			try (Tokenizer tokenizer = new Tokenizer(reader)) {
+				Projection projection = readStart(tokenizer);
+				if (projection == null) return null;
+				
+				List<E> ret = new ArrayList<>();
+				for(;;) {
+					E e = (E)read(tokenizer, projection);
+					if (e == null) break;
+					ret.add(e);
 				}
-
-				if (context.withHeader) {
-					readHeader(br);
+				return ret;
+			}
+		}
+		public List<E> file(File file) {
+			if (!file.exists()) return null;
+			if (file.length() == 0) return null;
+			try {
+				return file(new FileReader(file));
+			} catch (FileNotFoundException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			} catch (UnexpectedException e) {
+				logger.error("file {}", file.getPath());
+				throw e;
+			}
+		}
+		public List<E> file(String path) {
+			return file(new File(path));
+		}
+		
+		//
+		// Lazy read -- build each record on demand. Reader is closed at end of stream or by close()
+		//
+		private class RecordIterator implements Iterator<E>, Closeable {
+			private Tokenizer  tokenizer;
+			private Projection projection;
+			private E          next;
+			
+			RecordIterator(Reader reader) {
+				tokenizer = new Tokenizer(reader);
+				next      = null;
+				try {
+					projection = readStart(tokenizer);
+					if (projection == null) close();
+				} catch (UnexpectedException e) {
+					close();
+					throw e;
+				}
+			}
+			
+			@Override
+			public boolean hasNext() {
+				if (next != null) return true;
+				if (tokenizer == null) return false;
+				
+				try {
+					next = read(tokenizer, projection);
+				} catch (UnexpectedException e) {
+					close();
+					throw e;
+				}
+				if (next == null) close();
+				return next != null;
+			}
+			@Override
+			public E next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				E ret = next;
+				next = null;
+				return ret;
+			}
+			@Override
+			public void close() {
+				if (tokenizer == null) return;
+				try {
+					tokenizer.close();
+				} finally {
+					tokenizer = null;
+				}
+			}
+		}
+		
+		public Iterator<E> iterator(Reader reader) {
+			return new RecordIterator(reader);
+		}
+		public Iterator<E> iterator(File file) {
+			if (!file.exists()) return Collections.emptyIterator();
+			if (file.length() == 0) return Collections.emptyIterator();
+			try {
+				return iterator(new FileReader(file));
+			} catch (FileNotFoundException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			} catch (UnexpectedException e) {
+				logger.error("file {}", file.getPath());
+				throw e;
+			}
+		}
+		public Iterator<E> iterator(String path) {
+			return iterator(new File(path));
+		}
+		
+		// Returned stream need to be closed to release underlying reader. Use try-with-resources.
+		public Stream<E> stream(Reader reader) {
+			RecordIterator iterator = new RecordIterator(reader);
+			Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+			return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+		}
+		public Stream<E> stream(File file) {
+			if (!file.exists()) return Stream.empty();
+			if (file.length() == 0) return Stream.empty();
+			try {
+				return stream(new FileReader(file));
+			} catch (FileNotFoundException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			} catch (UnexpectedException e) {
+				logger.error("file {}", file.getPath());
+				throw e;
+			}
+		}
+		public Stream<E> stream(String path) {
+			return stream(new File(path));
+		}
+		
+		//
+		// Parallel read -- memory map file and split at record boundary. Each chunk is parsed in ForkJoinPool.
+		// Charset of file need to be ASCII compatible to find record boundary by byte value.
+		//
+		private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+		// Chunk is decoded to char array at once. Large file is split to more chunk, not to larger chunk.
+		private static final long MAX_CHUNK_SIZE = 32 * 1024 * 1024;
+		
+		// projection is result of readStart of same file
+		private List<E> readChunk(Charset charset, FileChannel fc, long start, long end, boolean first, Projection projection) {
+			try {
+				MappedByteBuffer mbb = fc.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+				CharBuffer       cb  = charset.decode(mbb);
+				Tokenizer tokenizer = new Tokenizer(cb.array(), cb.arrayOffset() + cb.position(), cb.arrayOffset() + cb.limit());
+				if (first) {
+					if (readStart(tokenizer) == null) return new ArrayList<>();
+				} else {
+					projection.apply(tokenizer);
 				}
 				
 				List<E> ret = new ArrayList<>();
 				for(;;) {
-					E e = (E)read(br);
+					E e = read(tokenizer, projection);
 					if (e == null) break;
 					ret.add(e);
 				}
@@ -608,7 +1267,508 @@ public class CSVUtil {
 				throw new UnexpectedException(exceptionName, e);
 			}
 		}
-		public List<E> file(File file) {
+		
+		private static boolean isASCIICompatible(Charset charset) {
+			return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1);
+		}
+		
+		private static long[] split(FileChannel fc, int parallelism) throws IOException {
+			long size      = fc.size();
+			long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4)));
+			return RecordBoundary.split(fc, size, chunkSize);
+		}
+		
+		// Read header before parsing chunks to share projection with all chunks
+		private Projection readProjection(File file) throws IOException {
+			try (Tokenizer tokenizer = new Tokenizer(new FileReader(file))) {
+				return readStart(tokenizer);
+			}
+		}
+		
+		// Returns list of ForkJoinTask for each chunk in file order
+		private List<ForkJoinTask<List<E>>> submitChunk(FileChannel fc, Projection projection, ForkJoinPool pool) throws IOException {
+			Charset charset = Charset.defaultCharset();
+			long[]  offsets = split(fc, pool.getParallelism());
+			
+			List<ForkJoinTask<List<E>>> ret = new ArrayList<>();
+			for(int i = 1; i < offsets.length; i++) {
+				final long    start = offsets[i - 1];
+				final long    end   = offsets[i];
+				final boolean first = i == 1;
+				ret.add(pool.submit(() -> readChunk(charset, fc, start, end, first, projection)));
+			}
+			return ret;
+		}
+		
+		public List<E> parallelFile(File file) {
+			if (!file.exists()) return null;
+			if (file.length() == 0) return null;
+			if (!isASCIICompatible(Charset.defaultCharset())) return file(file);
+			
+			try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				Projection projection = readProjection(file);
+				if (projection == null) return null;
+				
+				List<E> ret = new ArrayList<>();
+				for(ForkJoinTask<List<E>> task: submitChunk(fc, projection, ForkJoinPool.commonPool())) {
+					ret.addAll(task.join());
+				}
+				return ret;
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			} catch (UnexpectedException e) {
+				logger.error("file {}", file.getPath());
+				throw e;
+			}
+		}
+		public List<E> parallelFile(String path) {
+			return parallelFile(new File(path));
+		}
+		
+		// Returns unordered parallel stream. Chunks are parsed on demand in common pool.
+		public Stream<E> parallelStream(File file) {
+			if (!file.exists()) return Stream.empty();
+			if (file.length() == 0) return Stream.empty();
+			if (!isASCIICompatible(Charset.defaultCharset())) return stream(file);
+			
+			try {
+				Projection projection = readProjection(file);
+				if (projection == null) return Stream.empty();
+				
+				FileChannel fc      = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				Charset     charset = Charset.defaultCharset();
+				long[]      offsets;
+				try {
+					offsets = split(fc, ForkJoinPool.getCommonPoolParallelism());
+				} catch (IOException | RuntimeException e) {
+					// fc is closed by stream after this point
+					fc.close();
+					throw e;
+				}
+				
+				return IntStream.range(1, offsets.length).parallel().unordered()
+					.mapToObj(i -> readChunk(charset, fc, offsets[i - 1], offsets[i], i == 1, projection))
+					.flatMap(List::stream)
+					.onClose(() -> {
+						try {
+							fc.close();
+						} catch (IOException e) {
+							String exceptionName = e.getClass().getSimpleName();
+							logger.error("{} {}", exceptionName, e);
+							throw new UnexpectedException(exceptionName, e);
+						}
+					});
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			}
+		}
+		public Stream<E> parallelStream(String path) {
+			return parallelStream(new File(path));
+		}
+	}
+	
+	//
+	// Find record boundary of csv file by byte value. Newline in quoted field is not record boundary.
+	//
+	private static final class RecordBoundary {
+		private static final int FIELD_START = 0;
+		private static final int ORDINARY    = 1;
+		private static final int QUOTED      = 2;
+		private static final int ESCAPE      = 3; // back slash in quoted field
+		private static final int AFTER_QUOTE = 4;
+		
+		private static final long SEGMENT_SIZE = 256 * 1024 * 1024;
+		
+		// Returns offsets of chunk. First element is 0 and last element is size.
+		static long[] split(FileChannel fc, long size, long chunkSize) throws IOException {
+			List<Long> list = new ArrayList<>();
+			list.add(0L);
+			
+			long lastOffset = 0;
+			int  state      = FIELD_START;
+			for(long segment = 0; segment < size; segment += SEGMENT_SIZE) {
+				int length = (int)Math.min(SEGMENT_SIZE, size - segment);
+				MappedByteBuffer mbb = fc.map(FileChannel.MapMode.READ_ONLY, segment, length);
+				for(int i = 0; i < length; i++) {
+					byte c = mbb.get(i);
+					switch(state) {
+					case FIELD_START:
+						if (c == '"') {
+							state = QUOTED;
+						} else if (c == ',' || c == '\r' || c == '\n') {
+							// stay FIELD_START
+						} else {
+							state = ORDINARY;
+						}
+						break;
+					case ORDINARY:
+						if (c == ',' || c == '\n') state = FIELD_START;
+						break;
+					case QUOTED:
+						if (c == '"') {
+							state = AFTER_QUOTE;
+						} else if (c == '\\') {
+							state = ESCAPE;
+						}
+						break;
+					case ESCAPE:
+						state = QUOTED;
+						break;
+					case AFTER_QUOTE:
+						if (c == '"') {
+							state = QUOTED;
+						} else if (c == ',' || c == '\n') {
+							state = FIELD_START;
+						}
+						break;
+					default:
+						logger.error("Unexpected state {}", state);
+						throw new UnexpectedException("Unexpected state");
+					}
+					
+					if (c == '\n' && state == FIELD_START) {
+						// end of record
+						long offset = segment + i + 1;
+						if (chunkSize <= offset - lastOffset && offset < size) {
+							// Sanity check
+							if (Integer.MAX_VALUE < offset - lastOffset) {
+								logger.error("Unexpected chunk size  {}", offset - lastOffset);
+								throw new UnexpectedException("Unexpected chunk size");
+							}
+							list.add(offset);
+							lastOffset = offset;
+						}
+					}
+				}
+			}
+			list.add(size);
+			
+			long[] ret = new long[list.size()];
+			for(int i = 0; i < ret.length; i++) {
+				ret[i] = list.get(i);
+			}
+			return ret;
+		}
+	}
+	
+	//
+	// Parse number from range of char array without allocation. Comma in number is ignored.
+	// Fall back to parse method of String for the value that is not handled in fast path.
+	//
+	private static final double[] DOUBLE_POWER_OF_TEN = {
+		1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+	};
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	static double parseDouble(char[] array, int start, int end) {
+		if (start == end) return 0;
+		
+		int     i        = start;
+		boolean negative = false;
+		if (array[i] == '-' || array[i] == '+') {
+			negative = array[i] == '-';
+			i++;
+		}
+		long    mantissa  = 0;
+		int     scale     = 0;
+		boolean hasDot    = false;
+		boolean hasDigit  = false;
+		boolean fastPath  = true;
+		for(; i < end && fastPath; i++) {
+			char c = array[i];
+			if ('0' <= c && c <= '9') {
+				hasDigit = true;
+				mantissa = mantissa * 10 + (c - '0');
+				if (hasDot) scale++;
+				if (MAX_EXACT_MANTISSA <= mantissa || DOUBLE_POWER_OF_TEN.length <= scale) fastPath = false;
+			} else if (c == '.' && !hasDot) {
+				hasDot = true;
+			} else if (c == ',' && !hasDot) {
+				// ignore comma
+			} else {
+				fastPath = false;
+			}
+		}
+		if (fastPath && hasDigit) {
+			// Both mantissa and power of ten are exact double value. Result of division is correctly rounded.
+			double value = mantissa / DOUBLE_POWER_OF_TEN[scale];
+			return negative ? -value : value;
+		}
+		return Double.parseDouble(removeComma(new String(array, start, end - start)));
+	}
+	static long parseLong(char[] array, int start, int end) {
+		if (start == end) return 0;
+		
+		int     i        = start;
+		boolean negative = false;
+		if (array[i] == '-' || array[i] == '+') {
+			negative = array[i] == '-';
+			i++;
+		}
+		long    value    = 0;
+		int     digits   = 0;
+		boolean fastPath = true;
+		for(; i < end && fastPath; i++) {
+			char c = array[i];
+			if ('0' <= c && c <= '9') {
+				value = value * 10 + (c - '0');
+				// 18 digits never overflow
+				if (18 < ++digits) fastPath = false;
+			} else if (c != ',') {
+				fastPath = false;
+			}
+		}
+		if (fastPath && 0 < digits) {
+			return negative ? -value : value;
+		}
+		return Long.parseLong(removeComma(new String(array, start, end - start)));
+	}
+	static int parseInt(char[] array, int start, int end) {
+		long value = parseLong(array, start, end);
+		if (value < Integer.MIN_VALUE || Integer.MAX_VALUE < value) {
+			return Integer.parseInt(removeComma(new String(array, start, end - start)));
+		}
+		return (int)value;
+	}
+	private static int parseDigits(char[] array, int start, int end) {
+		int value = 0;
+		for(int i = start; i < end; i++) {
+			char c = array[i];
+			if (c < '0' || '9' < c) return -1;
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+	private static final long DAYS_0000_TO_1970 = 719528;
+	// Same value as LocalDate.toEpochDay() of value assigned by binder of LocalDate
+	static int parseEpochDay(char[] array, int start, int end) {
+		// fast path for yyyy-MM-dd
+		if (end - start == 10 && array[start + 4] == '-' && array[start + 7] == '-') {
+			int y = parseDigits(array, start,     start + 4);
+			int m = parseDigits(array, start + 5, start + 7);
+			int d = parseDigits(array, start + 8, start + 10);
+			if (0 <= y && 1 <= m && m <= 12 && 1 <= d && d <= Month.of(m).length(Year.isLeap(y))) {
+				// Same calculation as LocalDate.toEpochDay()
+				long total = 365L * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+				total += (367 * m - 362) / 12;
+				total += d - 1;
+				if (2 < m) {
+					total--;
+					if (!Year.isLeap(y)) total--;
+				}
+				return (int)(total - DAYS_0000_TO_1970);
+			}
+		}
+		
+		String value = new String(array, start, end - start);
+		final LocalDate localDate;
+		if (value.isEmpty() || value.equals("0")) {
+			localDate = NULL_LOCAL_DATE;
+		} else if (isDigits(value)) {
+			localDate = LocalDate.ofInstant(Instant.ofEpochMilli(Long.parseLong(value)), ZoneOffset.UTC);
+		} else {
+			localDate = LocalDate.parse(value);
+		}
+		return (int)localDate.toEpochDay();
+	}
+	
+	//
+	// Columnar read -- read selected columns into primitive array without creating object for each row
+	//
+	private static final class ColumnBuffer {
+		enum Type {
+			DOUBLE, LONG, INT, EPOCH_DAY
+		}
+		
+		final String name;
+		final Type   type;
+		
+		private double[] doubles;
+		private long[]   longs;
+		private int[]    ints;
+		private int      size;
+		
+		ColumnBuffer(String name, Type type) {
+			this.name = name;
+			this.type = type;
+			clear();
+		}
+		void clear() {
+			this.doubles = type == Type.DOUBLE ? new double[1024] : null;
+			this.longs   = type == Type.LONG   ? new long[1024]   : null;
+			this.ints    = (type == Type.INT || type == Type.EPOCH_DAY) ? new int[1024] : null;
+			this.size    = 0;
+		}
+		
+		void append(char[] array, int start, int end) {
+			switch(type) {
+			case DOUBLE:
+				if (size == doubles.length) doubles = Arrays.copyOf(doubles, size * 2);
+				doubles[size++] = parseDouble(array, start, end);
+				break;
+			case LONG:
+				if (size == longs.length) longs = Arrays.copyOf(longs, size * 2);
+				longs[size++] = parseLong(array, start, end);
+				break;
+			case INT:
+				if (size == ints.length) ints = Arrays.copyOf(ints, size * 2);
+				ints[size++] = parseInt(array, start, end);
+				break;
+			case EPOCH_DAY:
+				if (size == ints.length) ints = Arrays.copyOf(ints, size * 2);
+				ints[size++] = parseEpochDay(array, start, end);
+				break;
+			default:
+				logger.error("Unexpected type {}", type);
+				throw new UnexpectedException("Unexpected type");
+			}
+		}
+		
+		// Returns array that has exactly size elements
+		Object toArray() {
+			switch(type) {
+			case DOUBLE:
+				return doubles.length == size ? doubles : Arrays.copyOf(doubles, size);
+			case LONG:
+				return longs.length == size ? longs : Arrays.copyOf(longs, size);
+			case INT:
+			case EPOCH_DAY:
+				return ints.length == size ? ints : Arrays.copyOf(ints, size);
+			default:
+				logger.error("Unexpected type {}", type);
+				throw new UnexpectedException("Unexpected type");
+			}
+		}
+	}
+	
+	public static class ColumnData {
+		private final int                 size;
+		private final Map<String, Object> arrayMap;
+		private final Map<String, ColumnBuffer.Type> typeMap;
+		
+		private ColumnData(int size, List<ColumnBuffer> columnList) {
+			this.size     = size;
+			this.arrayMap = new TreeMap<>();
+			this.typeMap  = new TreeMap<>();
+			for(ColumnBuffer column: columnList) {
+				arrayMap.put(column.name, column.toArray());
+				typeMap.put(column.name, column.type);
+			}
+		}
+		
+		public int size() {
+			return size;
+		}
+		private Object get(String name, ColumnBuffer.Type type) {
+			if (!arrayMap.containsKey(name)) {
+				logger.error("Unexpected name  {}", name);
+				throw new UnexpectedException("Unexpected name");
+			}
+			if (typeMap.get(name) != type) {
+				logger.error("Unexpected type  {}  {}  {}", name, typeMap.get(name), type);
+				throw new UnexpectedException("Unexpected type");
+			}
+			return arrayMap.get(name);
+		}
+		
+		public double[] getDouble(String name) {
+			return (double[])get(name, ColumnBuffer.Type.DOUBLE);
+		}
+		public long[] getLong(String name) {
+			return (long[])get(name, ColumnBuffer.Type.LONG);
+		}
+		public int[] getInt(String name) {
+			return (int[])get(name, ColumnBuffer.Type.INT);
+		}
+		// LocalDate as value of LocalDate.toEpochDay()
+		public int[] getEpochDay(String name) {
+			return (int[])get(name, ColumnBuffer.Type.EPOCH_DAY);
+		}
+	}
+	
+	public static ReadColumn readColumn() {
+		return new ReadColumn();
+	}
+	public static class ReadColumn {
+		private final List<ColumnBuffer> columnList;
+		
+		private ReadColumn() {
+			columnList = new ArrayList<>();
+		}
+		
+		private ReadColumn add(String name, ColumnBuffer.Type type) {
+			for(ColumnBuffer column: columnList) {
+				if (column.name.equals(name)) {
+					logger.error("Duplicate name  {}", name);
+					throw new UnexpectedException("Duplicate name");
+				}
+			}
+			columnList.add(new ColumnBuffer(name, type));
+			return this;
+		}
+		public ReadColumn doubleColumn(String name) {
+			return add(name, ColumnBuffer.Type.DOUBLE);
+		}
+		public ReadColumn longColumn(String name) {
+			return add(name, ColumnBuffer.Type.LONG);
+		}
+		public ReadColumn intColumn(String name) {
+			return add(name, ColumnBuffer.Type.INT);
+		}
+		public ReadColumn epochDayColumn(String name) {
+			return add(name, ColumnBuffer.Type.EPOCH_DAY);
+		}
+		
+		// Column is selected by name in header
+		public ColumnData file(Reader reader) {
+			try (Tokenizer tokenizer = new Tokenizer(reader)) {
+				// Check end of stream and byte order mark
+				if (tokenizer.isEndOfStream()) return null;
+				tokenizer.skipByteOrderMark();
+				
+				if (tokenizer.next() == -1) {
+					logger.error("Unexpected EOF");
+					throw new UnexpectedException("Unexpected EOF");
+				}
+				String[] names = tokenizer.toArray();
+				
+				ColumnBuffer[] columns  = new ColumnBuffer[names.length];
+				boolean[]      select   = new boolean[names.length];
+				int            maxIndex = -1;
+				for(ColumnBuffer column: columnList) {
+					int index = Arrays.asList(names).indexOf(column.name);
+					if (index == -1) {
+						logger.error("Unexpected name  {}  {}", column.name, Arrays.asList(names));
+						throw new UnexpectedException("Unexpected name");
+					}
+					column.clear();
+					columns[index] = column;
+					select[index]  = true;
+					maxIndex = Math.max(maxIndex, index);
+				}
+				tokenizer.select(select);
+				tokenizer.handler((index, array, start, end) -> columns[index].append(array, start, end));
+				
+				int size = 0;
+				for(;;) {
+					int count = tokenizer.next();
+					if (count == -1) break;
+					// Sanity check
+					if (count <= maxIndex) {
+						logger.error("Unexpected count  {}  {}  row {}", maxIndex + 1, count, size);
+						throw new UnexpectedException("Unexpected count");
+					}
+					size++;
+				}
+				
+				return new ColumnData(size, columnList);
+			}
+		}
+		public ColumnData file(File file) {
 			if (!file.exists()) return null;
 			if (file.length() == 0) return null;
 			try {
@@ -622,7 +1782,7 @@ public class CSVUtil {
 				throw e;
 			}
 		}
-		public List<E> file(String path) {
+		public ColumnData file(String path) {
 			return file(new File(path));
 		}
 	}
@@ -642,15 +1802,19 @@ public class CSVUtil {
 			context.withHeader = newValue;
 			return this;
 		}
+		public Write<E> withFlushCount(int newValue) {
+			context.flushCount = newValue;
+			return this;
+		}
 		
 		private void writeHeader(BufferedWriter bw) {
 			try {
-				FieldInfo[] fieldInfos = classInfo.fieldInfos;
+				String[] names = classInfo.names;
 				
-				bw.write(fieldInfos[0].name);
-				for(int i = 1; i < fieldInfos.length; i++) {
+				bw.write(names[0]);
+				for(int i = 1; i < names.length; i++) {
 					bw.write(",");
-					bw.write(fieldInfos[i].name);
+					bw.write(names[i]);
 				}
 				bw.newLine();
 			} catch (IOException e) {
@@ -659,80 +1823,23 @@ public class CSVUtil {
 				throw new UnexpectedException(exceptionName, e);
 			}
 		}
-		private void writeField(BufferedWriter bw, String value) throws IOException {
-			if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r") || value.contains(";")) {
-				bw.write("\"");
-				
-				char[] charArray = value.toCharArray();
-				for(int i = 0; i < charArray.length; i++) {
-					char c = charArray[i];
-					switch(c) {
-					case '"':
-						bw.write('"');
-						bw.write('"');
-						break;
-					case '\n':
-						bw.write('\\');
-						bw.write('n');
-						break;
-					case '\r':
-						bw.write('\\');
-						bw.write('r');
-						break;
-					default:
-						bw.write(c);
-						break;
-					}
-				}
-				
-				bw.write("\"");						
-			} else {
-				bw.write(value);
-			}
-		}
-		private void write(BufferedWriter bw, E value) {
-			FieldInfo[] fieldInfos = classInfo.fieldInfos;
+		private void write(BufferedWriter bw, RecordBuffer buffer, E value) {
+			FieldInfo[]   fieldInfos = classInfo.fieldInfos;
+			StringBuilder sb         = buffer.sb;
 			
 			try {
-				for(int i = 0; i < fieldInfos.length; i++) {
-					if (1 <= i) bw.write(",");
-					
-					FieldInfo fieldInfo = fieldInfos[i];
-					switch (fieldInfo.clazzName) {
-					case "real":
-					case "double":
-					{
-						if (fieldInfo.format != null) {
-							double doubleValue = fieldInfo.field.getDouble(value);
-							writeField(bw, String.format(fieldInfo.format, doubleValue));
-						} else {
-							writeField(bw, fieldInfo.field.get(value).toString());
-						}
-					}
-						break;
-					case "java.math.BigDecimal":
-					{
-						// To avoid scientific expression of value, need to use toPlainString().
-						BigDecimal bigDecimalValue = (BigDecimal)fieldInfo.field.get(value);
-						writeField(bw, bigDecimalValue.toPlainString());
-					}
-						break;
-					default:
-					{
-						Object fieldValue = fieldInfo.field.get(value);
-						if (fieldValue == null) {
-							logger.error("field has null value");
-							logger.error("  field  {}  {}", fieldInfo.clazzName, fieldInfo.name);
-							throw new UnexpectedException("field has null value");
-						} else {
-							writeField(bw, fieldValue.toString());
-						}
-					}
-						break;
+				if (classInfo.codec != null) {
+					classInfo.codec.append(value, sb);
+				} else {
+					for(int i = 0; i < fieldInfos.length; i++) {
+						if (1 <= i) sb.append(',');
+						fieldInfos[i].appender.append(value, sb);
 					}
 				}
-				bw.newLine();
-			} catch (IllegalArgumentException | IllegalAccessException | IOException e) {
+				buffer.writeTo(bw);
+			} catch (UnexpectedException e) {
+				throw e;
+			} catch (Throwable e) {
 				String exceptionName = e.getClass().getSimpleName();
 				logger.error("{} {}", exceptionName, e);
 				throw new UnexpectedException(exceptionName, e);
@@ -744,8 +1851,9 @@ public class CSVUtil {
 				if (context.withHeader) {
 					writeHeader(bw);
 				}
+				RecordBuffer buffer = new RecordBuffer();
 				for(E e: collection) {
-					write(bw, e);
+					write(bw, buffer, e);
 				}
 			} catch (IOException e) {
 				String exceptionName = e.getClass().getSimpleName();
@@ -774,60 +1882,114 @@ public class CSVUtil {
 			file(new File(path), collection);
 		}
 		
-//		private BufferedWriter bwStart = null;
-//		public void start(String path) {
-//			start(new File(path));
-//		}
-//		public void start(File file) {
-//			// Create parent folder if not exists
-//			{
-//				File parent = file.getParentFile();
-//				if (!parent.exists()) {
-//					parent.mkdirs();
-//				}
-//			}
-//			
-//			try {
-//				start(new FileWriter(file));
-//			} catch (IOException e) {
-//				String exceptionName = e.getClass().getSimpleName();
-//				logger.error("{} {}", exceptionName, e);
-//				throw new UnexpectedException(exceptionName, e);
-//			}
-//		}
-//		public void start(Writer writer) {
-//			// Sanity check
-//			if (bwStart != null) {
-//				logger.error("bwStart != null");
-//				throw new UnexpectedException("bwStart != null");
-//			}
-//			bwStart = new BufferedWriter(writer, BUFFER_SIZE);
-//			if (context.withHeader) {
-//				writeHeader(bwStart);
-//			}
-//		}
-//		public void write(E e) {
-//			// Sanity check
-//			if (bwStart == null) {
-//				logger.error("bwStart == null");
-//				throw new UnexpectedException("bwStart == null");
-//			}
-//			write(bwStart, e);
-//		}
-//		public void stop() {
-//			// Sanity check
-//			if (bwStart == null) {
-//				logger.error("bwStart == null");
-//				throw new UnexpectedException("bwStart == null");
-//			}
-//			try {
-//				bwStart.close();
-//				bwStart = null;
-//			} catch (IOException e) {
-//				String exceptionName = e.getClass().getSimpleName();
-//				logger.error("{} {}", exceptionName, e);
-//				throw new UnexpectedException(exceptionName, e);
-//			}
-//		}
+		//
+		// Incremental write -- write records as they arrive. Use try-with-resources to close session.
+		//
+		public final class Session implements AutoCloseable {
+			private final RecordBuffer   buffer;
+			private       BufferedWriter bw;
+			private       int            countSinceFlush;
+			
+			private Session(Writer writer, boolean writeHeader) {
+				buffer          = new RecordBuffer();
+				bw              = new BufferedWriter(writer, BUFFER_SIZE);
+				countSinceFlush = 0;
+				if (writeHeader) {
+					writeHeader(bw);
+				}
+			}
+			
+			private void checkOpen() {
+				// Sanity check
+				if (bw == null) {
+					logger.error("session is closed");
+					throw new UnexpectedException("session is closed");
+				}
+			}
+			
+			public void write(E e) {
+				checkOpen();
+				Write.this.write(bw, buffer, e);
+				if (0 < context.flushCount && context.flushCount <= ++countSinceFlush) {
+					flush();
+				}
+			}
+			public void write(Iterable<E> iterable) {
+				for(E e: iterable) {
+					write(e);
+				}
+			}
+			public void flush() {
+				checkOpen();
+				try {
+					bw.flush();
+					countSinceFlush = 0;
+				} catch (IOException e) {
+					String exceptionName = e.getClass().getSimpleName();
+					logger.error("{} {}", exceptionName, e);
+					throw new UnexpectedException(exceptionName, e);
+				}
+			}
+			@Override
+			public void close() {
+				if (bw == null) return;
+				try {
+					bw.close();
+				} catch (IOException e) {
+					String exceptionName = e.getClass().getSimpleName();
+					logger.error("{} {}", exceptionName, e);
+					throw new UnexpectedException(exceptionName, e);
+				} finally {
+					bw = null;
+				}
+			}
+		}
+		
+		public Session start(Writer writer) {
+			return new Session(writer, context.withHeader);
+		}
+		public Session start(File file) {
+			// Create parent folder if not exists
+			{
+				File parent = file.getParentFile();
+				if (parent != null && !parent.exists()) {
+					parent.mkdirs();
+				}
+			}
+			
+			try {
+				return start(new FileWriter(file));
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			}
+		}
+		public Session start(String path) {
+			return start(new File(path));
+		}
+		
+		// Append to existing file. Header is written only when file is empty or not exists.
+		public Session append(File file) {
+			// Create parent folder if not exists
+			{
+				File parent = file.getParentFile();
+				if (parent != null && !parent.exists()) {
+					parent.mkdirs();
+				}
+			}
+			
+			boolean writeHeader = context.withHeader && (!file.exists() || file.length() == 0);
+			try {
+				return new Session(new FileWriter(file, true), writeHeader);
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			}
+		}
+		public Session append(String path) {
+			return append(new File(path));
+		}
 	}
 }
@@ -169,4 +169,36 @@ public final class ClassUtil {
     public final static List<Class<?>> findClass(final String packageName) {
     	return FindClass.find(packageName);
     }
+    
+    //
+    // Codec generated by yokwe.util.codec.CodecProcessor
+    //
+    // Set system property yokwe.util.codec.disable to true to use reflection even if codec exists
+    private static final boolean CODEC_DISABLE = Boolean.getBoolean("yokwe.util.codec.disable");
+    
+    // Name of codec class of clazz. Codec is in same package of clazz and '$' of nested class name is replaced with '_'.
+    // Same rule as CodecProcessor.
+    public static String getCodecName(Class<?> clazz, String suffix) {
+    	return clazz.getName().replace('$', '_') + "_" + suffix;
+    }
+    // Returns instance of codec of clazz. Returns null if codec is not generated or not enabled.
+    public static <E> E getCodec(Class<?> clazz, String suffix, Class<E> codecType) {
+    	if (CODEC_DISABLE) return null;
+    	
+    	String codecName = getCodecName(clazz, suffix);
+    	try {
+    		Class<?> codecClass = Class.forName(codecName, true, clazz.getClassLoader());
+    		if (!codecType.isAssignableFrom(codecClass)) {
+    			logger.warn("Unexpected codec class  {}  {}", codecName, codecType.getName());
+    			return null;
+    		}
+    		return codecType.cast(codecClass.getDeclaredConstructor().newInstance());
+    	} catch (ClassNotFoundException e) {
+    		return null;
+    	} catch (ReflectiveOperationException e) {
+    		String exceptionName = e.getClass().getSimpleName();
+    		logger.error("{} {}", exceptionName, e);
+    		throw new UnexpectedException(exceptionName, e);
+    	}
+    }
 }
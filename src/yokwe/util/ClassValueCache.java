@@ -0,0 +1,25 @@
+package yokwe.util;
+
+import java.util.function.Function;
+
+//
+// Thread safe cache of metadata of class.
+// Value is computed by function at first access of each class and shared by all threads.
+// Look up is lock free and keyed by Class, so no string comparison of class name.
+//
+public final class ClassValueCache<V> {
+	private final ClassValue<V> classValue;
+
+	public ClassValueCache(Function<Class<?>, V> function) {
+		this.classValue = new ClassValue<V>() {
+			@Override
+			protected V computeValue(Class<?> clazz) {
+				return function.apply(clazz);
+			}
+		};
+	}
+
+	public V get(Class<?> clazz) {
+		return classValue.get(clazz);
+	}
+}
@@ -11,17 +11,10 @@ public class EnumUtil {
 	static final org.slf4j.Logger logger = LoggerFactory.getLogger(EnumUtil.class);
 
 	private static class EnumInfo {
-		private static Map<String, EnumInfo> map = new TreeMap<>();
+		private static final ClassValueCache<EnumInfo> cache = new ClassValueCache<>(EnumInfo::new);
 		
 		static EnumInfo get(Class<?> clazz) {
-			String key = clazz.getName();
-			if (map.containsKey(key)) {
-				return map.get(key);
-			} else {
-				EnumInfo enumInfo = new EnumInfo(clazz);
-				map.put(key, enumInfo);
-				return enumInfo;
-			}
+			return cache.get(clazz);
 		}
 		
 		public Map<String, Enum<?>> enumMap;
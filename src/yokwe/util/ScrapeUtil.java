@@ -137,7 +137,7 @@ public class ScrapeUtil {
 		switch(typeName) {
 		case CLASS_STRING:
 		{
-			String value = toStringValue(string, fieldInfo.asNubmer);
+			String value = fieldInfo.intern(toStringValue(string, fieldInfo.asNubmer));
 			return value.isEmpty() ? Optional.empty() : Optional.of(value);
 		}
 		default:
@@ -177,7 +177,7 @@ public class ScrapeUtil {
 		return value;
 	}
 	
-	private static Map<String, Map<String, Enum<?>>> enumMapMap = new TreeMap<>();
+	private static final ClassValueCache<Map<String, Enum<?>>> enumMapCache = new ClassValueCache<>(ScrapeUtil::computeEnumMap);
 	private static Map<String, Enum<?>> getEnumMap(Class<?> clazz) {
 		String typeName = clazz.getTypeName();
 		if (!clazz.isEnum()) {
@@ -185,28 +185,26 @@ public class ScrapeUtil {
 			logger.error("  type  {}", typeName);
 			throw new UnexpectedException("Unexpected type");
 		}
-		if (enumMapMap.containsKey(typeName)) {
-			return enumMapMap.get(typeName);
-		} else {
-			Map<String, Enum<?>> enumMap = new TreeMap<>();
-			@SuppressWarnings("unchecked")
-			Class<Enum<?>> enumClazz = (Class<Enum<?>>)clazz;
-			for(Enum<?> e: enumClazz.getEnumConstants()) {
-				String key = e.toString();
-				if (enumMap.containsKey(key)) {
-					Enum<?> old = enumMap.get(key);
-					logger.error("Duplicate enum value");
-					logger.error("  enum {}", e.getClass().getName());
-					logger.error("  old  {} {}!", old.name(), old.toString());
-					logger.error("  new  {} {}!", e.name(), e.toString());
-					throw new UnexpectedException("Duplicate enum key");
-				} else {
-					enumMap.put(e.toString(), e);
-				}
+		return enumMapCache.get(clazz);
+	}
+	private static Map<String, Enum<?>> computeEnumMap(Class<?> clazz) {
+		Map<String, Enum<?>> enumMap = new TreeMap<>();
+		@SuppressWarnings("unchecked")
+		Class<Enum<?>> enumClazz = (Class<Enum<?>>)clazz;
+		for(Enum<?> e: enumClazz.getEnumConstants()) {
+			String key = e.toString();
+			if (enumMap.containsKey(key)) {
+				Enum<?> old = enumMap.get(key);
+				logger.error("Duplicate enum value");
+				logger.error("  enum {}", e.getClass().getName());
+				logger.error("  old  {} {}!", old.name(), old.toString());
+				logger.error("  new  {} {}!", e.name(), e.toString());
+				throw new UnexpectedException("Duplicate enum key");
+			} else {
+				enumMap.put(e.toString(), e);
 			}
-			enumMapMap.put(typeName, enumMap);
-			return enumMap;
 		}
+		return enumMap;
 	}
 	
 	private static class ClassInfo {
@@ -227,110 +225,112 @@ public class ScrapeUtil {
 		final Class<?> type;
 		final String   typeName;
 		final boolean  asNubmer;
+		final StringPool stringPool; // null if field has no Intern annotation
 
 		FieldInfo(Field field) {
-			this.field    = field;
-			this.name     = field.getName();
-			this.type     = field.getType();
-			this.typeName = field.getType().getName();
-			this.asNubmer = field.isAnnotationPresent(AsNumber.class);
+			this.field      = field;
+			this.name       = field.getName();
+			this.type       = field.getType();
+			this.typeName   = field.getType().getName();
+			this.asNubmer   = field.isAnnotationPresent(AsNumber.class);
+			this.stringPool = StringPool.of(field);
+		}
+		
+		String intern(String value) {
+			return stringPool == null ? value : stringPool.intern(value);
 		}
 	}
-	private static Map<String, ClassInfo> classInfoMap = new TreeMap<>();
+	private static final ClassValueCache<ClassInfo> classInfoCache = new ClassValueCache<>(ScrapeUtil::computeClassInfo);
 	private static ClassInfo getClassInfo(Class<?> clazz) {
+		return classInfoCache.get(clazz);
+	}
+	private static ClassInfo computeClassInfo(Class<?> clazz) {
 		String clazzName = clazz.getName();
-		if (classInfoMap.containsKey(clazzName)) {
-			return classInfoMap.get(clazzName);
-		} else {
-			try {
-				FieldInfo[] fieldInfos;
-				{
-					List<FieldInfo> list = new ArrayList<>();
-					Field[] fields = clazz.getDeclaredFields();
-					for(int i = 0; i < fields.length; i++) {
-						Field field   = fields[i];
-						int modifiers = field.getModifiers();
-						
-						// Skip static
-						if (Modifier.isStatic(modifiers)) continue;
+		try {
+			FieldInfo[] fieldInfos;
+			{
+				List<FieldInfo> list = new ArrayList<>();
+				Field[] fields = clazz.getDeclaredFields();
+				for(int i = 0; i < fields.length; i++) {
+					Field field   = fields[i];
+					int modifiers = field.getModifiers();
+					
+					// Skip static
+					if (Modifier.isStatic(modifiers)) continue;
 
-						// Sanity check
-						if (!Modifier.isPublic(modifiers)) {
-							logger.error("field is not public");
-							logger.error("  clazz  {}", clazz.getName());
-							logger.error("  field  {}", field.toString());
-							throw new UnexpectedException("not public field");
-						}
-						list.add(new FieldInfo(field));
+					// Sanity check
+					if (!Modifier.isPublic(modifiers)) {
+						logger.error("field is not public");
+						logger.error("  clazz  {}", clazz.getName());
+						logger.error("  field  {}", field.toString());
+						throw new UnexpectedException("not public field");
 					}
-					fieldInfos = list.toArray(new FieldInfo[0]);
+					list.add(new FieldInfo(field));
 				}
+				fieldInfos = list.toArray(new FieldInfo[0]);
+			}
 
-				Constructor<?> constructor = null;
+			Constructor<?> constructor = null;
+			{
+				Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+				
+				// Sanity check
 				{
-					Constructor<?>[] constructors = clazz.getDeclaredConstructors();
-					
-					// Sanity check
-					{
-						if (constructors.length == 0) {
-							logger.error("no constructor");
-							logger.error("  clazz       {}", clazz.getName());
-							throw new UnexpectedException("no constructor");
-						}
-						if (1 < constructors.length) {
-							logger.error("more than one constructor");
-							logger.error("  clazz       {}", clazz.getName());
-							for(Constructor<?> e: constructors) {
-								logger.error("  constructor {}", e.toString());
-							}
-							throw new UnexpectedException("more than one constructor");
-						}
-					}
-					
-					// Find constructor by param type
-					for(Constructor<?> myConstructor: constructors) {						
-						Parameter[] myParameters = myConstructor.getParameters();
-						if (myParameters.length == fieldInfos.length) {
-							boolean hasSameType = true;
-							for(int i = 0; i < myParameters.length; i++) {
-								Class<?> paramType = myParameters[i].getType();
-								Class<?> fieldType = fieldInfos[i].type;
-								if (paramType.equals(fieldType)) continue;
-								hasSameType = false;
-							}
-							if (hasSameType) {
-								constructor = myConstructor;
-							}
-						}
-					}
-					if (constructor == null) {
-						logger.error("no suitable constructor");
+					if (constructors.length == 0) {
+						logger.error("no constructor");
 						logger.error("  clazz       {}", clazz.getName());
-						logger.error("    expect {}", Arrays.stream(fieldInfos).map(o -> o.typeName).collect(Collectors.toList()));
-						throw new UnexpectedException("no suitable constructor");
+						throw new UnexpectedException("no constructor");
 					}
-					
-					// Sanity check
-					{
-						int modifiers = constructor.getModifiers();
-						if (!Modifier.isPublic(modifiers)) {
-							logger.error("constructor is not public");
-							logger.error("  clazz       {}", clazz.getName());
-							logger.error("  constructor {}", constructor.toString());
-							throw new UnexpectedException("method is not public");
+					if (1 < constructors.length) {
+						logger.error("more than one constructor");
+						logger.error("  clazz       {}", clazz.getName());
+						for(Constructor<?> e: constructors) {
+							logger.error("  constructor {}", e.toString());
 						}
+						throw new UnexpectedException("more than one constructor");
 					}
 				}
 				
-				ClassInfo classInfo = new ClassInfo(clazzName, constructor, fieldInfos);
-				classInfoMap.put(clazzName, classInfo);
+				// Find constructor by param type
+				for(Constructor<?> myConstructor: constructors) {						
+					Parameter[] myParameters = myConstructor.getParameters();
+					if (myParameters.length == fieldInfos.length) {
+						boolean hasSameType = true;
+						for(int i = 0; i < myParameters.length; i++) {
+							Class<?> paramType = myParameters[i].getType();
+							Class<?> fieldType = fieldInfos[i].type;
+							if (paramType.equals(fieldType)) continue;
+							hasSameType = false;
+						}
+						if (hasSameType) {
+							constructor = myConstructor;
+						}
+					}
+				}
+				if (constructor == null) {
+					logger.error("no suitable constructor");
+					logger.error("  clazz       {}", clazz.getName());
+					logger.error("    expect {}", Arrays.stream(fieldInfos).map(o -> o.typeName).collect(Collectors.toList()));
+					throw new UnexpectedException("no suitable constructor");
+				}
 				
-				return classInfo;
-			} catch (IllegalArgumentException | SecurityException e) {
-				String exceptionName = e.getClass().getSimpleName();
-				logger.error("{} {}", exceptionName, e);
-				throw new UnexpectedException(exceptionName, e);
+				// Sanity check
+				{
+					int modifiers = constructor.getModifiers();
+					if (!Modifier.isPublic(modifiers)) {
+						logger.error("constructor is not public");
+						logger.error("  clazz       {}", clazz.getName());
+						logger.error("  constructor {}", constructor.toString());
+						throw new UnexpectedException("method is not public");
+					}
+				}
 			}
+			
+			return new ClassInfo(clazzName, constructor, fieldInfos);
+		} catch (IllegalArgumentException | SecurityException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.error("{} {}", exceptionName, e);
+			throw new UnexpectedException(exceptionName, e);
 		}
 	}
 	
@@ -366,7 +366,7 @@ public class ScrapeUtil {
 		
 		switch(typeName) {
 		case CLASS_STRING:
-			arg = toStringValue(stringValue, fieldInfo.asNubmer);
+			arg = fieldInfo.intern(toStringValue(stringValue, fieldInfo.asNubmer));
 			break;
 		case CLASS_DOUBLE:
 			arg = toClassDouble(stringValue);
@@ -0,0 +1,102 @@
+package yokwe.util;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+
+//
+// Bounded pool to share one String instance among repeated values like symbol, exchange and currency.
+// Pool is two way set associative table of String. Older entry of set is dropped when new value is added, so size of pool is bounded.
+// Look up from range of char array creates no String if value is in pool.
+// Pool is thread safe without lock. Racing threads may store different but equal instance, which is harmless.
+//
+public final class StringPool {
+	// Share String value of annotated field. Used by CSVUtil, ScrapeUtil, JSON and JSONBase.
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.FIELD)
+	public static @interface Intern {
+		// number of entry of pool for the field. Rounded up to power of two.
+		int value() default DEFAULT_SIZE;
+	}
+
+	public static final int DEFAULT_SIZE = 1024;
+	public static final int MAX_SIZE     = 1 << 20;
+	// Longer value is not pooled. Long value is rarely repeated and comparison cost is high.
+	public static final int MAX_LENGTH   = 64;
+
+	// Returns pool for field with Intern annotation. Returns null if field has no Intern annotation.
+	public static StringPool of(Field field) {
+		Intern intern = field.getDeclaredAnnotation(Intern.class);
+		return intern == null ? null : new StringPool(intern.value());
+	}
+
+	private final String[] table;
+	private final int      mask;
+
+	public StringPool(int size) {
+		int tableSize = Integer.highestOneBit(Math.max(2, Math.min(size, MAX_SIZE)) * 2 - 1);
+		this.table = new String[tableSize];
+		this.mask  = tableSize - 1;
+	}
+	public StringPool() {
+		this(DEFAULT_SIZE);
+	}
+
+	// Same value as String.hashCode(), so both intern methods use same slot for same value
+	private static int hash(char[] array, int start, int end) {
+		int h = 0;
+		for(int i = start; i < end; i++) {
+			h = 31 * h + array[i];
+		}
+		return h;
+	}
+	private int slot(int h) {
+		// first slot of set is even
+		return (h ^ (h >>> 16)) & mask & ~1;
+	}
+	private static boolean equals(String string, char[] array, int start, int length) {
+		if (string.length() != length) return false;
+		for(int i = 0; i < length; i++) {
+			if (string.charAt(i) != array[start + i]) return false;
+		}
+		return true;
+	}
+	// newer value is in first slot of set
+	private void add(int slot, String value) {
+		table[slot + 1] = table[slot];
+		table[slot]     = value;
+	}
+
+	public String intern(char[] array, int start, int end) {
+		int length = end - start;
+		if (length == 0) return "";
+		if (MAX_LENGTH < length) return new String(array, start, length);
+
+		int    slot = slot(hash(array, start, end));
+		String s0   = table[slot];
+		if (s0 != null && equals(s0, array, start, length)) return s0;
+		String s1   = table[slot + 1];
+		if (s1 != null && equals(s1, array, start, length)) return s1;
+
+		String ret = new String(array, start, length);
+		add(slot, ret);
+		return ret;
+	}
+
+	public String intern(String value) {
+		if (value == null) return null;
+		if (value.isEmpty()) return "";
+		if (MAX_LENGTH < value.length()) return value;
+
+		int    slot = slot(value.hashCode());
+		String s0   = table[slot];
+		if (value.equals(s0)) return s0;
+		String s1   = table[slot + 1];
+		if (value.equals(s1)) return s1;
+
+		add(slot, value);
+		return value;
+	}
+}
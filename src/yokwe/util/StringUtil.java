@@ -17,8 +17,6 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -281,20 +279,12 @@ public class StringUtil {
 			}
 		}
 
-		private static Map<String, ClassInfo> map = new TreeMap<>();
+		private static final ClassValueCache<ClassInfo> cache = new ClassValueCache<>(ClassInfo::new);
 		
 		final FieldInfo[] fieldInfos;
 		
 		static ClassInfo get(Object o) {
-			Class<?> clazz = o.getClass();
-			String clazzName = clazz.getName();
-			if (map.containsKey(clazzName)) {
-				return map.get(clazzName);
-			} else {
-				ClassInfo classInfo = new ClassInfo(clazz);
-				map.put(clazzName, classInfo);
-				return classInfo;
-			}
+			return cache.get(o.getClass());
 		}
 		
 		ClassInfo(Class<?> clazz) {
@@ -0,0 +1,153 @@
+package yokwe.util.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.json.JsonObject;
+
+import yokwe.util.json.JSONBase;
+
+//
+// Synthetic data for benchmark
+// Same seed produce same data, so numbers are comparable between runs.
+//
+public final class BenchmarkData {
+	public static final long SEED = 19700101L;
+	
+	private static final String[] SYMBOLS = {"AAPL", "MSFT", "AMZN", "GOOG", "IBM", "BRK.B", "JPM", "V", "JNJ", "WMT"};
+	private static final String[] NAMES   = {"Apple Inc.", "Microsoft Corp", "Amazon.com, Inc.", "Alphabet \"Class C\"", "International Business Machines"};
+	
+	//
+	// CSV
+	//
+	public static class Price {
+		public String    symbol;
+		public LocalDate date;
+		public String    name;
+		public double    open;
+		public double    close;
+		public long      volume;
+		
+		public Price(String symbol, LocalDate date, String name, double open, double close, long volume) {
+			this.symbol = symbol;
+			this.date   = date;
+			this.name   = name;
+			this.open   = open;
+			this.close  = close;
+			this.volume = volume;
+		}
+		public Price() {
+			this(null, null, null, 0, 0, 0);
+		}
+	}
+	
+	public static List<Price> priceList(int count) {
+		Random random = new Random(SEED);
+		LocalDate start = LocalDate.of(2000, 1, 1);
+		
+		List<Price> ret = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			String    symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+			LocalDate date   = start.plusDays(i);
+			String    name   = NAMES[random.nextInt(NAMES.length)];
+			double    open   = Math.round(random.nextDouble() * 100_000) / 100.0;
+			double    close  = Math.round(random.nextDouble() * 100_000) / 100.0;
+			long      volume = random.nextInt(10_000_000);
+			ret.add(new Price(symbol, date, name, open, close, volume));
+		}
+		return ret;
+	}
+	
+	//
+	// JSON
+	//
+	public static class Quote {
+		public String symbol;
+		public String name;
+		public double price;
+		public long   volume;
+		public int    count;
+		public String date;
+		
+		public Quote() {
+			//
+		}
+	}
+	
+	public static class QuoteBase extends JSONBase {
+		public String symbol;
+		public String name;
+		public double price;
+		public long   volume;
+		public int    count;
+		public String date;
+		
+		public QuoteBase(JsonObject jsonObject) {
+			super(jsonObject);
+		}
+	}
+	
+	private static void appendQuote(StringBuilder sb, Random random, int i) {
+		sb.append("{\"symbol\":\"").append(SYMBOLS[random.nextInt(SYMBOLS.length)]).append('"');
+		sb.append(",\"name\":\"").append(NAMES[random.nextInt(NAMES.length)].replace("\"", "\\\"")).append('"');
+		sb.append(",\"price\":").append(Math.round(random.nextDouble() * 100_000) / 100.0);
+		sb.append(",\"volume\":").append(random.nextInt(10_000_000));
+		sb.append(",\"count\":").append(i);
+		sb.append(",\"date\":\"").append(LocalDate.of(2000, 1, 1).plusDays(i)).append('"');
+		sb.append('}');
+	}
+	
+	public static String quoteObject() {
+		StringBuilder sb = new StringBuilder();
+		appendQuote(sb, new Random(SEED), 0);
+		return sb.toString();
+	}
+	
+	public static String quoteArray(int count) {
+		Random random = new Random(SEED);
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+		for(int i = 0; i < count; i++) {
+			if (i != 0) sb.append(',');
+			appendQuote(sb, random, i);
+		}
+		sb.append(']');
+		return sb.toString();
+	}
+	
+	//
+	// Scrape
+	//
+	public static class Row {
+		public final String symbol;
+		public final String name;
+		public final double price;
+		public final long   volume;
+		
+		public Row(String symbol, String name, double price, long volume) {
+			this.symbol = symbol;
+			this.name   = name;
+			this.price  = price;
+			this.volume = volume;
+		}
+	}
+	
+	public static String html(int count) {
+		Random random = new Random(SEED);
+		StringBuilder sw = new StringBuilder();
+		sw.append("<html><body><table>\n");
+		for(int i = 0; i < count; i++) {
+			sw.append("<tr>");
+			sw.append("<td class=\"symbol\">").append(SYMBOLS[random.nextInt(SYMBOLS.length)]).append("</td>");
+			sw.append("<td class=\"name\">").append(NAMES[random.nextInt(NAMES.length)]).append("</td>");
+			sw.append("<td class=\"price\">").append(String.format(Locale.US, "%,.2f", random.nextDouble() * 100_000)).append("</td>");
+			sw.append("<td class=\"volume\">").append(String.format(Locale.US, "%,d", random.nextInt(10_000_000))).append("</td>");
+			sw.append("</tr>\n");
+		}
+		sw.append("</table></body></html>\n");
+		return sw.toString();
+	}
+}
@@ -0,0 +1,65 @@
+package yokwe.util.bench;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import yokwe.util.CSVUtil;
+import yokwe.util.bench.BenchmarkData.Price;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSVBenchmark {
+	@Param({"1000"})
+	public int count;
+	
+	private List<Price> list;
+	private String      csv;
+	private String      line;
+	
+	@Setup
+	public void setup() {
+		list = BenchmarkData.priceList(count);
+		
+		StringWriter writer = new StringWriter();
+		CSVUtil.write(Price.class).file(writer, list);
+		csv  = writer.toString();
+		
+		// second line is first record, first line is header
+		line = csv.split("\n")[1].trim();
+	}
+	
+	@Benchmark
+	public String[] parseLine() {
+		return CSVUtil.parseLine(line);
+	}
+	
+	@Benchmark
+	public List<Price> read() {
+		return CSVUtil.read(Price.class).file(new StringReader(csv));
+	}
+	
+	@Benchmark
+	public String write() {
+		StringWriter writer = new StringWriter(csv.length());
+		CSVUtil.write(Price.class).file(writer, list);
+		return writer.toString();
+	}
+}
@@ -0,0 +1,63 @@
+package yokwe.util.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import yokwe.util.json.JSON;
+import yokwe.util.json.JSONBase;
+import yokwe.util.bench.BenchmarkData.Quote;
+import yokwe.util.bench.BenchmarkData.QuoteBase;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JSONBenchmark {
+	@Param({"1000"})
+	public int count;
+	
+	private String      object;
+	private String      array;
+	private List<Quote> list;
+	
+	@Setup
+	public void setup() {
+		object = BenchmarkData.quoteObject();
+		array  = BenchmarkData.quoteArray(count);
+		list   = JSON.getList(Quote.class, array);
+	}
+	
+	@Benchmark
+	public Quote unmarshal() {
+		return JSON.unmarshal(Quote.class, object);
+	}
+	
+	@Benchmark
+	public List<Quote> getList() {
+		return JSON.getList(Quote.class, array);
+	}
+	
+	@Benchmark
+	public String toJSONString() {
+		return JSON.toJSONString(list.toArray());
+	}
+	
+	@Benchmark
+	public List<QuoteBase> jsonBaseGetList() {
+		return JSONBase.getList(QuoteBase.class, array);
+	}
+}
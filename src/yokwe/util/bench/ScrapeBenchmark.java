@@ -0,0 +1,52 @@
+package yokwe.util.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import yokwe.util.ScrapeUtil;
+import yokwe.util.bench.BenchmarkData.Row;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScrapeBenchmark {
+	private static final Pattern PAT = Pattern.compile(
+		"<tr>" +
+		"<td class=\"symbol\">(?<symbol>.+?)</td>" +
+		"<td class=\"name\">(?<name>.+?)</td>" +
+		"<td class=\"price\">(?<price>.+?)</td>" +
+		"<td class=\"volume\">(?<volume>.+?)</td>" +
+		"</tr>"
+	);
+	
+	@Param({"1000"})
+	public int count;
+	
+	private String html;
+	
+	@Setup
+	public void setup() {
+		html = BenchmarkData.html(count);
+	}
+	
+	@Benchmark
+	public List<Row> getList() {
+		return ScrapeUtil.getList(Row.class, PAT, html);
+	}
+}
@@ -0,0 +1,526 @@
+package yokwe.util.codec;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+//
+// Generate codec of class that uses annotation of CSVUtil or JSON at compile time.
+//   CSVUtil.ColumnName, CSVUtil.DecimalPlaces             => <class>_CSVCodec  implements CSVUtil.Codec
+//   JSON.Name, JSON.Ignore, JSON.DateTimeFormat           => <class>_JSONCodec implements JSON.Codec
+// Codec is placed in same package of class. '$' of nested class name is replaced with '_'. See ClassUtil.getCodecName.
+// CSVUtil and JSON use codec if exists and use reflection otherwise.
+// If class is not suitable for codec (private field, final field, no default constructor, unsupported type), no codec is generated.
+//
+// This processor is registered in META-INF/services of jar. javac uses it when the jar is in class path.
+//
+@SupportedAnnotationTypes({
+	CodecProcessor.CSV_COLUMN_NAME,
+	CodecProcessor.CSV_DECIMAL_PLACES,
+	CodecProcessor.JSON_NAME,
+	CodecProcessor.JSON_IGNORE,
+	CodecProcessor.JSON_DATE_TIME_FORMAT,
+})
+public final class CodecProcessor extends AbstractProcessor {
+	static final String CSV_COLUMN_NAME       = "yokwe.util.CSVUtil.ColumnName";
+	static final String CSV_DECIMAL_PLACES    = "yokwe.util.CSVUtil.DecimalPlaces";
+	static final String JSON_NAME             = "yokwe.util.json.JSON.Name";
+	static final String JSON_IGNORE           = "yokwe.util.json.JSON.Ignore";
+	static final String JSON_DATE_TIME_FORMAT = "yokwe.util.json.JSON.DateTimeFormat";
+	static final String INTERN                = "yokwe.util.StringPool.Intern";
+
+	static final String CSV_CODEC   = "yokwe.util.CSVUtil.Codec";
+	static final String JSON_CODEC  = "yokwe.util.json.JSON.Codec";
+	static final String STRING_POOL = "yokwe.util.StringPool";
+
+	static final String CSV_SUFFIX  = "CSVCodec";
+	static final String JSON_SUFFIX = "JSONCodec";
+
+	// placeholder of value in template of generated code. literal() never outputs this char
+	private static final String HOLE = "\u0000";
+
+	private final Set<String> generated = new TreeSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<TypeElement> csvSet  = new LinkedHashSet<>();
+		Set<TypeElement> jsonSet = new LinkedHashSet<>();
+		for(TypeElement annotation: annotations) {
+			String  name  = annotation.getQualifiedName().toString();
+			boolean isCSV = name.equals(CSV_COLUMN_NAME) || name.equals(CSV_DECIMAL_PLACES);
+			for(Element element: roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.FIELD) continue;
+				TypeElement type = (TypeElement)element.getEnclosingElement();
+				if (isCSV) {
+					csvSet.add(type);
+				} else {
+					jsonSet.add(type);
+				}
+			}
+		}
+
+		for(TypeElement type: csvSet) {
+			generate(type, CSV_SUFFIX);
+		}
+		for(TypeElement type: jsonSet) {
+			generate(type, JSON_SUFFIX);
+		}
+
+		// don't claim annotations
+		return false;
+	}
+
+	private void note(TypeElement type, String suffix, String reason) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "No " + suffix + " for " + type.getQualifiedName() + " -- " + reason, type);
+	}
+	private void generate(TypeElement type, String suffix) {
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String codecName  = binaryName.replace('$', '_') + "_" + suffix;
+		if (generated.contains(codecName)) return;
+		generated.add(codecName);
+
+		String reason = checkClass(type);
+		if (reason != null) {
+			note(type, suffix, reason);
+			return;
+		}
+
+		List<VariableElement> fieldList = new ArrayList<>();
+		for(VariableElement field: ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			if (field.getModifiers().contains(Modifier.STATIC)) continue;
+			fieldList.add(field);
+		}
+
+		CodecWriter writer = suffix.equals(CSV_SUFFIX) ? new CSVCodecWriter(type, fieldList) : new JSONCodecWriter(type, fieldList);
+		reason = writer.check();
+		if (reason != null) {
+			note(type, suffix, reason);
+			return;
+		}
+
+		int    index       = codecName.lastIndexOf('.');
+		String packageName = index == -1 ? null : codecName.substring(0, index);
+		String simpleName  = codecName.substring(index + 1);
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(codecName, type).openWriter())) {
+			if (packageName != null) {
+				out.println("package " + packageName + ";");
+				out.println();
+			}
+			out.println("// Generated by " + CodecProcessor.class.getName() + " from " + type.getQualifiedName() + ". Don't edit.");
+			out.println("@javax.annotation.processing.Generated(\"" + CodecProcessor.class.getName() + "\")");
+			writer.write(out, simpleName);
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + codecName + " -- " + e, type);
+		}
+	}
+
+	// Returns reason if class is not suitable for codec. Returns null if suitable.
+	private String checkClass(TypeElement type) {
+		if (type.getKind() != ElementKind.CLASS)               return "not class";
+		if (type.getModifiers().contains(Modifier.ABSTRACT))   return "abstract class";
+		if (!type.getTypeParameters().isEmpty())               return "generic class";
+		for(Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+			if (e.getModifiers().contains(Modifier.PRIVATE))    return "private class";
+			if (e.getEnclosingElement() instanceof TypeElement && !e.getModifiers().contains(Modifier.STATIC)) return "inner class";
+		}
+
+		boolean hasConstructor = false;
+		for(ExecutableElement constructor: ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) hasConstructor = true;
+		}
+		if (!hasConstructor) return "no default constructor";
+
+		for(VariableElement field: ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			Set<Modifier> modifiers = field.getModifiers();
+			if (modifiers.contains(Modifier.STATIC))  continue;
+			if (modifiers.contains(Modifier.PRIVATE)) return "private field " + field.getSimpleName();
+			if (modifiers.contains(Modifier.FINAL))   return "final field " + field.getSimpleName();
+			if (!isAccessible(field.asType(), type))  return "inaccessible type of field " + field.getSimpleName();
+		}
+		return null;
+	}
+	// Returns true if type can be written in source of codec in same package of owner
+	private boolean isAccessible(TypeMirror typeMirror, TypeElement owner) {
+		switch(typeMirror.getKind()) {
+		case ARRAY:
+			return isAccessible(((ArrayType)typeMirror).getComponentType(), owner);
+		case DECLARED:
+		{
+			PackageElement ownerPackage = processingEnv.getElementUtils().getPackageOf(owner);
+			for(Element e = ((DeclaredType)typeMirror).asElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+				Set<Modifier> modifiers = e.getModifiers();
+				if (modifiers.contains(Modifier.PRIVATE)) return false;
+				if (modifiers.contains(Modifier.PUBLIC)) continue;
+				if (!processingEnv.getElementUtils().getPackageOf(e).equals(ownerPackage)) return false;
+			}
+			return true;
+		}
+		default:
+			return typeMirror.getKind().isPrimitive();
+		}
+	}
+
+	private static AnnotationMirror getAnnotation(Element element, String name) {
+		for(AnnotationMirror annotation: element.getAnnotationMirrors()) {
+			if (((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) return annotation;
+		}
+		return null;
+	}
+	// Returns value of annotation including default value. Returns null if element has no annotation.
+	private Object getAnnotationValue(Element element, String name) {
+		AnnotationMirror annotation = getAnnotation(element, name);
+		if (annotation == null) return null;
+		for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals("value")) return entry.getValue().getValue();
+		}
+		return null;
+	}
+
+	// Java string literal of value
+	private static String literal(String value) {
+		StringBuilder sb = new StringBuilder("\"");
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch(c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			default:
+				if (c < 0x20 || 0x7E < c) {
+					sb.append(String.format("\\u%04X", (int)c));
+				} else {
+					sb.append(c);
+				}
+				break;
+			}
+		}
+		return sb.append('"').toString();
+	}
+	// Same value as Class.getName() of field type. Used in error message.
+	private String typeName(TypeMirror typeMirror) {
+		if (typeMirror.getKind().isPrimitive()) return typeMirror.getKind().name().toLowerCase();
+		if (typeMirror.getKind() == TypeKind.DECLARED) return processingEnv.getElementUtils().getBinaryName((TypeElement)((DeclaredType)typeMirror).asElement()).toString();
+		return typeMirror.toString();
+	}
+	// Type name in source. Type argument is removed.
+	private String sourceName(TypeMirror typeMirror) {
+		return processingEnv.getTypeUtils().erasure(typeMirror).toString();
+	}
+
+	private abstract class CodecWriter {
+		final TypeElement           type;
+		final String                className;
+		final List<VariableElement> fieldList;
+
+		CodecWriter(TypeElement type, List<VariableElement> fieldList) {
+			this.type      = type;
+			this.className = type.getQualifiedName().toString();
+			this.fieldList = fieldList;
+		}
+
+		// Returns reason if class is not suitable for codec. Returns null if suitable.
+		abstract String check();
+		abstract void write(PrintWriter out, String simpleName);
+	}
+
+	//
+	// CSV -- same conversion as FieldInfo.buildBinder and FieldInfo.buildAppender of CSVUtil
+	//
+	private final class CSVCodecWriter extends CodecWriter {
+		final List<String> nameList    = new ArrayList<>();
+		final List<String> poolList    = new ArrayList<>(); // null for no pool
+		final List<String> bindList    = new ArrayList<>(); // expression with HOLE for value
+		final List<String> appendList  = new ArrayList<>(); // statement with HOLE for field
+		final List<String> enumMapList = new ArrayList<>(); // declaration of enum map
+
+		CSVCodecWriter(TypeElement type, List<VariableElement> fieldList) {
+			super(type, fieldList);
+		}
+
+		@Override
+		String check() {
+			if (fieldList.isEmpty()) return "no field";
+
+			for(VariableElement field: fieldList) {
+				TypeMirror fieldType = field.asType();
+				String     clazzName = typeName(fieldType);
+
+				Object columnName = getAnnotationValue(field, CSV_COLUMN_NAME);
+				String name = (columnName == null) ? field.getSimpleName().toString() : columnName.toString();
+				nameList.add(name);
+
+				Object intern = getAnnotationValue(field, INTERN);
+				poolList.add(intern == null ? null : "new " + STRING_POOL + "(" + intern + ")");
+
+				// bind
+				switch(clazzName) {
+				case "java.math.BigDecimal":
+					bindList.add(CSV_CODEC + ".toBigDecimal(" + HOLE + ")");
+					break;
+				case "int":
+				case "java.lang.Integer":
+					bindList.add(CSV_CODEC + ".toInt(" + HOLE + ")");
+					break;
+				case "long":
+				case "java.lang.Long":
+					bindList.add(CSV_CODEC + ".toLong(" + HOLE + ")");
+					break;
+				case "double":
+				case "java.lang.Double":
+					bindList.add(CSV_CODEC + ".toDouble(" + HOLE + ")");
+					break;
+				case "boolean":
+				case "java.lang.Boolean":
+					bindList.add(CSV_CODEC + ".toBoolean(" + HOLE + ")");
+					break;
+				case "java.lang.String":
+					bindList.add(HOLE);
+					break;
+				case "java.time.LocalDateTime":
+					bindList.add(CSV_CODEC + ".toLocalDateTime(" + HOLE + ")");
+					break;
+				case "java.time.LocalDate":
+					bindList.add(CSV_CODEC + ".toLocalDate(" + HOLE + ")");
+					break;
+				case "java.time.LocalTime":
+					bindList.add(CSV_CODEC + ".toLocalTime(" + HOLE + ")");
+					break;
+				default:
+				{
+					if (fieldType.getKind() != TypeKind.DECLARED) return "unsupported type of field " + field.getSimpleName();
+					TypeElement fieldTypeElement = (TypeElement)((DeclaredType)fieldType).asElement();
+					String      fieldTypeName    = sourceName(fieldType);
+					if (fieldTypeElement.getKind() == ElementKind.ENUM) {
+						String enumMapName = "ENUM_MAP_" + field.getSimpleName();
+						enumMapList.add("private static final java.util.Map<String, " + fieldTypeName + "> " + enumMapName + " = " + CSV_CODEC + ".enumMap(" + fieldTypeName + ".class);");
+						bindList.add(CSV_CODEC + ".toEnum(" + enumMapName + ", " + literal(clazzName) + ", " + HOLE + ")");
+					} else if (hasGetInstance(fieldTypeElement, fieldType)) {
+						bindList.add(fieldTypeName + ".getInstance(" + HOLE + ")");
+					} else {
+						return "unsupported type of field " + field.getSimpleName();
+					}
+				}
+					break;
+				}
+
+				// append
+				Object decimalPlaces = getAnnotationValue(field, CSV_DECIMAL_PLACES);
+				if (decimalPlaces != null && !clazzName.equals("double")) return "unexpected type of DecimalPlaces of field " + field.getSimpleName();
+				String checkNull = CSV_CODEC + ".checkNull(" + HOLE + ", " + literal(clazzName) + ", " + literal(name) + ")";
+				switch(clazzName) {
+				case "double":
+					if (decimalPlaces != null) {
+						int digits = (Integer)decimalPlaces;
+						if (digits <= 0) return "unexpected digits of field " + field.getSimpleName();
+						appendList.add(CSV_CODEC + ".appendFixed(sb, " + HOLE + ", " + digits + ", " + literal(String.format("%%.%df", digits)) + ");");
+					} else {
+						appendList.add("sb.append(" + HOLE + ");");
+					}
+					break;
+				case "int":
+				case "long":
+				case "boolean":
+					appendList.add("sb.append(" + HOLE + ");");
+					break;
+				case "java.lang.String":
+					appendList.add(CSV_CODEC + ".appendField(sb, " + checkNull + ");");
+					break;
+				case "java.math.BigDecimal":
+					appendList.add("sb.append(" + checkNull + ".toPlainString());");
+					break;
+				case "java.time.LocalDate":
+					appendList.add(CSV_CODEC + ".appendLocalDate(sb, " + checkNull + ");");
+					break;
+				default:
+					appendList.add(CSV_CODEC + ".appendField(sb, " + checkNull + ".toString());");
+					break;
+				}
+			}
+			return null;
+		}
+		// public static getInstance(String) declared in class and returns value assignable to field
+		private boolean hasGetInstance(TypeElement typeElement, TypeMirror fieldType) {
+			for(ExecutableElement method: ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
+				if (!method.getSimpleName().contentEquals("getInstance")) continue;
+				if (!method.getModifiers().contains(Modifier.STATIC) || !method.getModifiers().contains(Modifier.PUBLIC)) continue;
+				if (method.getParameters().size() != 1) continue;
+				if (!typeName(method.getParameters().get(0).asType()).equals("java.lang.String")) continue;
+				return processingEnv.getTypeUtils().isAssignable(method.getReturnType(), fieldType);
+			}
+			return false;
+		}
+
+		@Override
+		void write(PrintWriter out, String simpleName) {
+			boolean hasPool = poolList.stream().anyMatch(o -> o != null);
+
+			out.println("public final class " + simpleName + " implements " + CSV_CODEC + "<" + className + "> {");
+			{
+				List<String> list = new ArrayList<>();
+				for(String name: nameList) list.add(literal(name));
+				out.println("\tprivate static final String[] NAMES = {" + String.join(", ", list) + "};");
+			}
+			if (hasPool) {
+				List<String> list = new ArrayList<>();
+				for(String pool: poolList) list.add(pool == null ? "null" : pool);
+				out.println("\tprivate static final " + STRING_POOL + "[] POOLS = {" + String.join(", ", list) + "};");
+			} else {
+				out.println("\tprivate static final " + STRING_POOL + "[] POOLS = null;");
+			}
+			for(String enumMap: enumMapList) {
+				out.println("\t" + enumMap);
+			}
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic String[] names() {");
+			out.println("\t\treturn NAMES;");
+			out.println("\t}");
+			out.println("\t@Override");
+			out.println("\tpublic " + STRING_POOL + "[] pools() {");
+			out.println("\t\treturn POOLS;");
+			out.println("\t}");
+			out.println("\t@Override");
+			out.println("\tpublic " + className + " newInstance() {");
+			out.println("\t\treturn new " + className + "();");
+			out.println("\t}");
+			out.println("\t@Override");
+			out.println("\tpublic void bind(" + className + " o, String[] v, int[] c) {");
+			out.println("\t\tif (c == null) {");
+			for(int i = 0; i < fieldList.size(); i++) {
+				out.println("\t\t\to." + fieldList.get(i).getSimpleName() + " = " + bindList.get(i).replace(HOLE, "v[" + i + "]") + ";");
+			}
+			out.println("\t\t} else {");
+			for(int i = 0; i < fieldList.size(); i++) {
+				out.println("\t\t\to." + fieldList.get(i).getSimpleName() + " = " + bindList.get(i).replace(HOLE, "v[c[" + i + "]]") + ";");
+			}
+			out.println("\t\t}");
+			out.println("\t}");
+			out.println("\t@Override");
+			out.println("\tpublic void append(" + className + " o, StringBuilder sb) {");
+			for(int i = 0; i < fieldList.size(); i++) {
+				if (1 <= i) out.println("\t\tsb.append(',');");
+				out.println("\t\t" + appendList.get(i).replace(HOLE, "o." + fieldList.get(i).getSimpleName()));
+			}
+			out.println("\t}");
+			out.println("}");
+		}
+	}
+
+	//
+	// JSON -- field accessor
+	//
+	private final class JSONCodecWriter extends CodecWriter {
+		JSONCodecWriter(TypeElement type, List<VariableElement> fieldList) {
+			super(type, fieldList);
+		}
+
+		@Override
+		String check() {
+			return null;
+		}
+
+		private String boxName(TypeMirror typeMirror) {
+			if (typeMirror.getKind().isPrimitive()) {
+				return processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(typeMirror.getKind())).getQualifiedName().toString();
+			}
+			return sourceName(typeMirror);
+		}
+		private void writeSetter(PrintWriter out, String methodName, String valueType, TypeKind kind) {
+			out.println("\t@Override");
+			out.println("\tpublic void " + methodName + "(" + className + " o, int index, " + valueType + " value) {");
+			out.println("\t\tswitch(index) {");
+			for(int i = 0; i < fieldList.size(); i++) {
+				VariableElement field     = fieldList.get(i);
+				TypeMirror      fieldType = field.asType();
+				if (kind == null) {
+					out.println("\t\tcase " + i + ": o." + field.getSimpleName() + " = (" + boxName(fieldType) + ")value; break;");
+				} else if (fieldType.getKind() == kind) {
+					out.println("\t\tcase " + i + ": o." + field.getSimpleName() + " = value; break;");
+				}
+			}
+			out.println("\t\tdefault: throw " + JSON_CODEC + ".noField(" + literal(className) + ", index);");
+			out.println("\t\t}");
+			out.println("\t}");
+		}
+		private void writeGetter(PrintWriter out, String methodName, String valueType, TypeKind kind) {
+			out.println("\t@Override");
+			out.println("\tpublic " + valueType + " " + methodName + "(" + className + " o, int index) {");
+			out.println("\t\tswitch(index) {");
+			for(int i = 0; i < fieldList.size(); i++) {
+				VariableElement field = fieldList.get(i);
+				if (kind == null || field.asType().getKind() == kind) {
+					out.println("\t\tcase " + i + ": return o." + field.getSimpleName() + ";");
+				}
+			}
+			out.println("\t\tdefault: throw " + JSON_CODEC + ".noField(" + literal(className) + ", index);");
+			out.println("\t\t}");
+			out.println("\t}");
+		}
+
+		@Override
+		void write(PrintWriter out, String simpleName) {
+			out.println("public final class " + simpleName + " implements " + JSON_CODEC + "<" + className + "> {");
+			{
+				List<String> list = new ArrayList<>();
+				for(VariableElement field: fieldList) list.add(literal(field.getSimpleName().toString()));
+				out.println("\tprivate static final String[] NAMES = {" + String.join(", ", list) + "};");
+			}
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic String[] names() {");
+			out.println("\t\treturn NAMES;");
+			out.println("\t}");
+			out.println("\t@Override");
+			out.println("\tpublic " + className + " newInstance() {");
+			out.println("\t\treturn new " + className + "();");
+			out.println("\t}");
+			out.println();
+			out.println("\t@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+			writeSetter(out, "set",        "Object",  null);
+			writeSetter(out, "setDouble",  "double",  TypeKind.DOUBLE);
+			writeSetter(out, "setLong",    "long",    TypeKind.LONG);
+			writeSetter(out, "setInt",     "int",     TypeKind.INT);
+			writeSetter(out, "setBoolean", "boolean", TypeKind.BOOLEAN);
+			out.println();
+			writeGetter(out, "get",        "Object",  null);
+			writeGetter(out, "getDouble",  "double",  TypeKind.DOUBLE);
+			writeGetter(out, "getLong",    "long",    TypeKind.LONG);
+			writeGetter(out, "getInt",     "int",     TypeKind.INT);
+			writeGetter(out, "getBoolean", "boolean", TypeKind.BOOLEAN);
+			out.println("}");
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package yokwe.util.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+//
+// Receives response body incrementally, so whole body is not held in memory. See Task.newBodySink.
+// Call sequence is write* then complete, or abort at any point.
+//
+public interface BodySink {
+	// consume all remaining bytes of src
+	public void write(ByteBuffer src) throws IOException;
+	public void complete() throws IOException;
+	// release resource and discard written data. Called on failure.
+	public void abort();
+	
+	public static final int BUFFER_SIZE = 64 * 1024;
+	
+	public static void copy(InputStream is, BodySink sink) throws IOException {
+		byte[]     array  = new byte[BUFFER_SIZE];
+		ByteBuffer buffer = ByteBuffer.wrap(array);
+		for(;;) {
+			int n = is.read(array);
+			if (n == -1) break;
+			buffer.clear().limit(n);
+			sink.write(buffer);
+		}
+	}
+}
@@ -2,6 +2,8 @@ package yokwe.util.http;
 
 public interface Download {
 	public void setRequesterBuilder(RequesterBuilder requesterBuilder);
+	// Send conditional GET and serve 304 Not Modified from cache. null to disable
+	public void setHttpCache(HttpCache httpCache);
 	
 	public void addTask(Task task);
 	
@@ -3,11 +3,13 @@ package yokwe.util.http;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
@@ -16,19 +18,16 @@ import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.HttpRequest;
-import org.apache.hc.core5.http.HttpResponse;
-import org.apache.hc.core5.http.Message;
 import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.ProtocolVersion;
 import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
 import org.apache.hc.core5.http.message.BasicHeader;
 import org.apache.hc.core5.http.message.BasicHttpRequest;
 import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
 import org.apache.hc.core5.http.nio.AsyncRequestProducer;
 import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
-import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityConsumer;
 import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
 import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
-import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
 import org.apache.hc.core5.http2.config.H2Config;
 import org.apache.hc.core5.http2.impl.nio.bootstrap.H2RequesterBootstrap;
 import org.apache.hc.core5.http2.ssl.H2ClientTlsStrategy;
@@ -42,14 +41,18 @@ import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import yokwe.UnexpectedException;
-
 public final class DownloadAsync implements Download {
 	static final Logger logger = LoggerFactory.getLogger(DownloadAsync.class);
 
-	private HttpAsyncRequester requester = null;
+	private HttpAsyncRequester requester           = null;
+	private int                maxInFlightPerRoute = 0;
+	private int                maxConnPerRoute     = 0;
+	private HttpCache          httpCache           = null;
 	
 	public void setRequesterBuilder(RequesterBuilder requesterBuilder) {
+		maxInFlightPerRoute = requesterBuilder.maxInFlightPerRoute;
+		maxConnPerRoute     = requesterBuilder.defaultMaxPerRoute;
+		
         H2Config h2Config = H2Config.custom()
                 .setPushEnabled(false)
                 .build();
@@ -87,9 +90,17 @@ public final class DownloadAsync implements Download {
         requester.start(); // Need to start
 	}
 	
-	private final LinkedList<Task> taskQueue = new LinkedList<Task>();
+	public void setHttpCache(HttpCache newValue) {
+		httpCache = newValue;
+	}
+	
+	private final ConcurrentLinkedQueue<Task> taskQueue = new ConcurrentLinkedQueue<>();
+	private final TaskTracker                 tracker   = new TaskTracker();
+	// Can be called while processing task, for example from Task.process to follow link
 	public void addTask(Task task) {
+		tracker.add();
 		taskQueue.add(task);
+		if (running) submit();
 	}
 	
 	private final List<Header> headerList = new ArrayList<>();
@@ -103,15 +114,16 @@ public final class DownloadAsync implements Download {
 		addHeader("User-Agent", value);
 	}
 	
+	// Number of thread that runs Task.process. I/O is driven by I/O reactor of requester.
 	private int threadCount = 1;
 	public void setThreadCount(int newValue) {
 		threadCount = newValue;
 	}
 	
-	private ExecutorService executor      = null;
-	private int 		    taskQueueSize = 0;
-	private Worker[]        workerArray   = null;
-	private CountDownLatch  stopLatch     = null;
+	private ExecutorService            executor  = null;
+	private volatile boolean           running   = false;
+	private final AtomicInteger        doneCount = new AtomicInteger();
+	private final Map<HttpHost, Route> routeMap  = new ConcurrentHashMap<>();
 	
 	public void startProcessTask() {
 		if (requester == null) {
@@ -119,48 +131,47 @@ public final class DownloadAsync implements Download {
 			// Set requester using default value of RequestBuilder
 			setRequesterBuilder(RequesterBuilder.custom());
 		}
-		taskQueueSize = taskQueue.size();
-		
 		logger.info("threadCount {}", threadCount);
-		executor = Executors.newFixedThreadPool(threadCount);
-		
-		stopLatch = new CountDownLatch(taskQueueSize);
-
-		workerArray = new Worker[threadCount];
-		for(int i = 0; i < threadCount; i++) {
-			Worker workder = new Worker(String.format("WORKER-%02d", i));
-			workerArray[i] = workder;
+		doneCount.set(0);
+		{
+			AtomicInteger threadNumber = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(threadCount, o -> new Thread(o, String.format("WORKER-%02d", threadNumber.getAndIncrement())));
 		}
 		
-		for(Worker worker: workerArray) {
-			executor.execute(worker);
+		running = true;
+		submit();
+		logger.info("routeCount {}", routeMap.size());
+	}
+	// Move task in queue to route
+	private void submit() {
+		for(;;) {
+			Task task = taskQueue.poll();
+			if (task == null) break;
+			Route route = routeMap.computeIfAbsent(HttpHost.create(task.uri), Route::new);
+			route.add(task);
+			route.dispatch();
 		}
 	}
 	public void waitProcessTask() {
 		try {
-			stopLatch.await();
+			tracker.await();
+			running = false;
 			executor.shutdown();
 			executor.awaitTermination(1, TimeUnit.DAYS);
 		} catch (InterruptedException e) {
 			String exceptionName = e.getClass().getSimpleName();
 			logger.warn("{} {}", exceptionName, e);
 		} finally {
-			executor      = null;
-			stopLatch     = null;
-			taskQueueSize = 0;
+			routeMap.values().forEach(o -> o.close());
+			
+			running  = false;
+			executor = null;
 		}
 	}
 	public void showRunCount() {
-		logger.info("== Worker runCount");
-		for(int i = 0; i < threadCount;) {
-			StringBuilder sb = new StringBuilder();
-			sb.append(String.format("%s ", workerArray[i].name));
-			for(int j = 0; j < 10; j++) {
-				if (i < threadCount) {
-					sb.append(String.format("%4d", workerArray[i++].runCount));
-				}
-			}
-			logger.info("{}", sb.toString());
+		logger.info("== Route runCount");
+		for(Route route: routeMap.values()) {
+			logger.info("{}", String.format("%-40s  %6d  %6d", route.target, route.runCount, route.failCount));
 		}
 	}
 	public void startAndWait() {
@@ -168,77 +179,232 @@ public final class DownloadAsync implements Download {
 		waitProcessTask();
 	}
 	
-	private class Worker implements Runnable {
-		private String name;
-		private int    runCount;
-		public Worker(String name) {
-			this.name      = name;
-			this.runCount  = 0;
+	private void done(Task task) {
+		// log before done, as completion of last task releases waitProcessTask
+		int count = doneCount.incrementAndGet();
+		if ((count % 1000) == 0) {
+			logger.info("{}", String.format("%4d / %4d  %s", count, tracker.addCount(), task.uri));
 		}
+		tracker.done();
+	}
+	
+	private static final class Connection {
+		private final AsyncClientEndpoint endpoint;
+		private int     active      = 0;
+		// true after response of HTTP/2 is received. Until then connection carries one request at a time.
+		private boolean multiplexed = false;
+		private boolean broken      = false;
 		
-		@Override
-		public void run() {
-			if (requester == null) {
-				throw new UnexpectedException("requester == null");
+		Connection(AsyncClientEndpoint endpoint) {
+			this.endpoint = endpoint;
+		}
+	}
+	
+	//
+	// Pending task and open connection of one host.
+	// Number of outstanding request is bounded by maxInFlightPerRoute. Connection is reused for following task.
+	// Whole chain of connect, execute and consume runs in callback, so no thread waits for network.
+	// Fields are guarded by this. Callback of requester is called outside of lock.
+	//
+	private final class Route {
+		private final HttpHost               target;
+		private final LinkedList<Task>       pendingList    = new LinkedList<>();
+		private final ArrayList<Connection>  connectionList = new ArrayList<>();
+		private int connecting = 0;
+		private int inFlight   = 0;
+		private int runCount   = 0;
+		private int failCount  = 0;
+		
+		Route(HttpHost target) {
+			this.target = target;
+		}
+		
+		synchronized void add(Task task) {
+			pendingList.add(task);
+		}
+		
+		// returns connection that can carry one more request
+		private Connection available() {
+			for(int i = 0; i < connectionList.size(); i++) {
+				Connection connection = connectionList.get(i);
+				if (!connection.endpoint.isConnected()) {
+					// closed by peer
+					connection.broken = true;
+					connectionList.remove(i--);
+					if (connection.active == 0) connection.endpoint.releaseAndDiscard();
+					continue;
+				}
+				int capacity = connection.multiplexed ? maxInFlightPerRoute : 1;
+				if (connection.active < capacity) return connection;
 			}
-			Thread.currentThread().setName(name);
-
-			for(;;) {
-				final int  count;
-				final Task task;
-				synchronized (taskQueue) {
-					count = taskQueueSize - taskQueue.size();
-					task  = taskQueue.poll();
+			return null;
+		}
+		
+		void dispatch() {
+			final List<Connection> executeConnectionList = new ArrayList<>();
+			final List<Task>       executeTaskList       = new ArrayList<>();
+			final int              connectCount;
+			synchronized (this) {
+				while(!pendingList.isEmpty() && inFlight < maxInFlightPerRoute) {
+					Connection connection = available();
+					if (connection == null) break;
+					
+					connection.active++;
+					inFlight++;
+					runCount++;
+					executeConnectionList.add(connection);
+					executeTaskList.add(pendingList.poll());
 				}
-				if (task == null) break;
 				
-				if ((count % 1000) == 0) {
-					logger.info("{}", String.format("%4d / %4d  %s", count, taskQueueSize, task.uri));
+				// open connection for remaining task
+				int want = Math.min(pendingList.size(), maxInFlightPerRoute - inFlight) - connecting;
+				int room = maxConnPerRoute - connectionList.size() - connecting;
+				connectCount = Math.max(0, Math.min(want, room));
+				connecting += connectCount;
+			}
+			
+			for(int i = 0; i < executeTaskList.size(); i++) {
+				execute(executeConnectionList.get(i), executeTaskList.get(i));
+			}
+			for(int i = 0; i < connectCount; i++) {
+				connect();
+			}
+		}
+		
+		private void connect() {
+			requester.connect(target, Timeout.ofSeconds(30), null, new FutureCallback<AsyncClientEndpoint>() {
+				@Override
+				public void completed(final AsyncClientEndpoint endpoint) {
+					synchronized (Route.this) {
+						connecting--;
+						connectionList.add(new Connection(endpoint));
+					}
+					dispatch();
 				}
-				runCount++;
 
-	            try {
-					HttpHost target = HttpHost.create(task.uri);
-					AsyncClientEndpoint clientEndpoint = requester.connect(target, Timeout.ofSeconds(30)).get();
-					
-		            HttpRequest request = new BasicHttpRequest(Method.GET, task.uri);
-		            headerList.forEach(o -> request.addHeader(o));
-		            
-		            AsyncRequestProducer                                 requestProducer  = new BasicRequestProducer(request, null);
-		            AsyncResponseConsumer<Message<HttpResponse, byte[]>> responseConsumer = new BasicResponseConsumer<>(new BasicAsyncEntityConsumer());
-		            FutureCallback<Message<HttpResponse, byte[]>>        futureCallback   = new FutureCallback<Message<HttpResponse, byte[]>>() {
-		        	    @Override
-		        	    public void completed(final Message<HttpResponse, byte[]> message) {
-		        	        clientEndpoint.releaseAndReuse();
-		        	        
-		        	        Result result = new Result(task, message);
-		        	        task.process(result);
-		        	        stopLatch.countDown();
-		        	    }
-
-		        	    @Override
-		        	    public void failed(final Exception e) {
-		        	        clientEndpoint.releaseAndDiscard();
-		        	        logger.warn("failed {}", task.uri);
-		        			String exceptionName = e.getClass().getSimpleName();
-		        			logger.warn("{} {}", exceptionName, e);
-		        	        stopLatch.countDown();
-		        	    }
+				@Override
+				public void failed(final Exception e) {
+					logger.warn("connect failed {}", target);
+					String exceptionName = e.getClass().getSimpleName();
+					logger.warn("{} {}", exceptionName, e);
+					connectFailed();
+				}
 
-		        	    @Override
-		        	    public void cancelled() {
-		        	        clientEndpoint.releaseAndDiscard();
-		        	        logger.warn("cancelled {}", task.uri);
-		        	        stopLatch.countDown();
-		        	    }
-		            };
+				@Override
+				public void cancelled() {
+					logger.warn("connect cancelled {}", target);
+					connectFailed();
+				}
+			});
+		}
+		private void connectFailed() {
+			final List<Task> failList;
+			synchronized (this) {
+				connecting--;
+				if (connectionList.isEmpty() && connecting == 0 && inFlight == 0) {
+					// no way to reach the host. give up pending task
+					failList = new ArrayList<>(pendingList);
+					pendingList.clear();
+					failCount += failList.size();
+				} else {
+					failList = null;
+				}
+			}
+			if (failList == null) {
+				dispatch();
+			} else {
+				for(Task task: failList) {
+					logger.warn("failed {}", task.uri);
+					done(task);
+				}
+			}
+		}
+		
+		private void execute(Connection connection, Task task) {
+			HttpRequest request = new BasicHttpRequest(Method.GET, task.uri);
+			headerList.forEach(o -> request.addHeader(o));
+			
+			HttpCache.Entry entry = httpCache == null ? null : httpCache.get(task.uri);
+			HttpCache.setConditionalHeader(request, entry);
+			
+			AsyncRequestProducer          requestProducer  = new BasicRequestProducer(request, null);
+			AsyncResponseConsumer<Result> responseConsumer = new ResultConsumer(task, httpCache, entry);
+			FutureCallback<Result>        futureCallback   = new FutureCallback<Result>() {
+				@Override
+				public void completed(final Result result) {
+					ProtocolVersion version = result.version;
+					release(connection, false, version != null && 2 <= version.getMajor());
+					
+					// Task.process can take time. Don't run it in I/O reactor thread.
+					executor.execute(() -> {
+						try {
+							task.process(result);
+						} catch (RuntimeException e) {
+							String exceptionName = e.getClass().getSimpleName();
+							logger.warn("{} {}", exceptionName, e);
+						} finally {
+							done(task);
+						}
+					});
+				}
 
-		            clientEndpoint.execute(requestProducer, responseConsumer, futureCallback);
-				} catch (InterruptedException | ExecutionException e) {
+				@Override
+				public void failed(final Exception e) {
+					if (e instanceof HttpCache.MissingBodyException) {
+						// cached body is removed after request. entry is dropped, so task is requested again without conditional header
+						logger.warn("{}", e.getMessage());
+						synchronized (Route.this) {
+							pendingList.addFirst(task);
+						}
+						release(connection, false, false);
+						return;
+					}
+					logger.warn("failed {}", task.uri);
 					String exceptionName = e.getClass().getSimpleName();
 					logger.warn("{} {}", exceptionName, e);
+					synchronized (Route.this) {
+						failCount++;
+					}
+					release(connection, true, false);
+					done(task);
+				}
+
+				@Override
+				public void cancelled() {
+					logger.warn("cancelled {}", task.uri);
+					synchronized (Route.this) {
+						failCount++;
+					}
+					release(connection, true, false);
+					done(task);
 				}
+			};
+			
+			connection.endpoint.execute(requestProducer, responseConsumer, futureCallback);
+		}
+		
+		private void release(Connection connection, boolean broken, boolean multiplexed) {
+			boolean discard;
+			synchronized (this) {
+				connection.active--;
+				inFlight--;
+				if (multiplexed) connection.multiplexed = true;
+				if (broken && !connection.broken) {
+					connection.broken = true;
+					connectionList.remove(connection);
+				}
+				discard = connection.broken && connection.active == 0;
+			}
+			if (discard) connection.endpoint.releaseAndDiscard();
+			
+			dispatch();
+		}
+		
+		synchronized void close() {
+			for(Connection connection: connectionList) {
+				connection.endpoint.releaseAndReuse();
 			}
+			connectionList.clear();
 		}
 	}
-}
\ No newline at end of file
+}
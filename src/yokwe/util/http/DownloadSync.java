@@ -1,22 +1,31 @@
 package yokwe.util.http;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.Method;
 import org.apache.hc.core5.http.impl.bootstrap.HttpRequester;
 import org.apache.hc.core5.http.impl.bootstrap.RequesterBootstrap;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.SocketConfig;
 import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
 import org.apache.hc.core5.http.message.BasicHeader;
@@ -31,9 +40,41 @@ import yokwe.UnexpectedException;
 public final class DownloadSync implements Download {
 	static final Logger logger = LoggerFactory.getLogger(DownloadSync.class);
 
-	private HttpRequester requester = null;
+	// Executors.newVirtualThreadPerTaskExecutor is available from Java 21. Look up by reflection to build with older JDK.
+	private static final java.lang.reflect.Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR;
+	static {
+		java.lang.reflect.Method method;
+		try {
+			method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			method = null;
+		}
+		NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = method;
+	}
+	// Returns null if virtual thread is not available
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) return null;
+		try {
+			return (ExecutorService)NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			// preview feature of Java 19 and 20 is not enabled
+			return null;
+		}
+	}
+
+	private HttpRequester requester     = null;
+	private boolean       virtualThread = false;
+	private int           maxTotal      = 0;
+	private int           maxPerHost    = 0;
+	private Timeout       leaseTimeout  = null;
+	private HttpCache     httpCache     = null;
 	
 	public void setRequesterBuilder(RequesterBuilder requesterBuilder) {
+		virtualThread = requesterBuilder.virtualThread;
+		maxTotal      = requesterBuilder.maxTotal;
+		maxPerHost    = requesterBuilder.defaultMaxPerRoute;
+		leaseTimeout  = Timeout.ofSeconds(requesterBuilder.leaseTimeout);
+		
 		SocketConfig socketConfig = SocketConfig.custom()
                 .setSoTimeout(requesterBuilder.soTimeout, TimeUnit.SECONDS)
                 .build();
@@ -53,9 +94,22 @@ public final class DownloadSync implements Download {
         });
 	}
 	
-	private final LinkedList<Task> taskQueue = new LinkedList<Task>();
+	public void setHttpCache(HttpCache newValue) {
+		httpCache = newValue;
+	}
+	
+	private final ConcurrentLinkedQueue<Task> taskQueue = new ConcurrentLinkedQueue<>();
+	private final TaskTracker                 tracker   = new TaskTracker();
+	// Can be called while processing task, for example from Task.process to follow link
 	public void addTask(Task task) {
+		tracker.add();
 		taskQueue.add(task);
+		if (virtualThreadRunning) {
+			submitVirtualThread();
+		} else {
+			// wake idle worker
+			tracker.signal();
+		}
 	}
 	
 	private final List<Header> headerList = new ArrayList<>();
@@ -74,16 +128,31 @@ public final class DownloadSync implements Download {
 		threadCount = newValue;
 	}
 	
-	private ExecutorService executor      = null;
-	private int 		    taskQueueSize = 0;
-	private Worker[]        workerArray   = null;
+	private ExecutorService     executor             = null;
+	private Worker[]            workerArray          = null;
+	private volatile boolean    virtualThreadRunning = false;
+	private final AtomicInteger startCount           = new AtomicInteger();
 	public void startProcessTask() {
 		if (requester == null) {
 			logger.warn("Set requester using default value of RequestBuilder");
 			// Set requester using default value of RequestBuilder
 			setRequesterBuilder(RequesterBuilder.custom());
 		}
-		taskQueueSize = taskQueue.size();
+		startCount.set(0);
+		
+		if (virtualThread) {
+			executor = newVirtualThreadPerTaskExecutor();
+			if (executor != null) {
+				logger.info("virtualThread maxTotal {} maxPerHost {}", maxTotal, maxPerHost);
+				workerArray    = null;
+				totalSemaphore = new Semaphore(maxTotal);
+				hostMap.clear();
+				virtualThreadRunning = true;
+				submitVirtualThread();
+				return;
+			}
+			logger.warn("virtual thread is not available");
+		}
 		
 		logger.info("threadCount {}", threadCount);
 		executor = Executors.newFixedThreadPool(threadCount);
@@ -100,17 +169,24 @@ public final class DownloadSync implements Download {
 	}
 	public void waitProcessTask() {
 		try {
+			tracker.await();
+			virtualThreadRunning = false;
 			executor.shutdown();
 			executor.awaitTermination(1, TimeUnit.DAYS);
 		} catch (InterruptedException e) {
 			String exceptionName = e.getClass().getSimpleName();
 			logger.warn("{} {}", exceptionName, e);
 		} finally {
-			executor      = null;
-			taskQueueSize = 0;
+			virtualThreadRunning = false;
+			executor             = null;
 		}
 	}
 	public void showRunCount() {
+		if (workerArray == null) {
+			logger.info("== Host runCount");
+			hostMap.forEach((k, v) -> logger.info("{}", String.format("%-40s  %6d", k, v.runCount.get())));
+			return;
+		}
 		logger.info("== Worker runCount");
 		for(int i = 0; i < threadCount;) {
 			StringBuilder sb = new StringBuilder();
@@ -128,6 +204,144 @@ public final class DownloadSync implements Download {
 		waitProcessTask();
 	}
 	
+	// Process one task in current thread
+	private void process(Task task, HttpCoreContext coreContext) {
+		try {
+			Result result = execute(task, coreContext);
+			task.process(result);
+		} catch (HttpException | IOException | RuntimeException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.warn("{} {}", exceptionName, e);
+		}
+	}
+	private Result execute(Task task, HttpCoreContext coreContext) throws HttpException, IOException {
+		boolean useCache = true;
+		for(;;) {
+			try {
+				return execute(task, coreContext, useCache);
+			} catch (ConnectionRequestTimeoutException e) {
+				// all connection of pool is busy. wait again, as connection is released after response is consumed
+				logger.warn("lease timeout {}", task.uri);
+			} catch (HttpCache.MissingBodyException e) {
+				// cached body is removed after request. request again without conditional header
+				logger.warn("{}", e.getMessage());
+				useCache = false;
+			}
+		}
+	}
+	private Result execute(Task task, HttpCoreContext coreContext, boolean useCache) throws HttpException, IOException {
+		HttpHost target = HttpHost.create(task.uri);
+		
+		ClassicHttpRequest request = new BasicClassicHttpRequest(Method.GET, task.uri);
+		headerList.forEach(o -> request.addHeader(o));
+		
+		HttpCache.Entry entry = (httpCache == null || !useCache) ? null : httpCache.get(task.uri);
+		HttpCache.setConditionalHeader(request, entry);
+		
+		HttpClientResponseHandler<Result> responseHandler = new HttpClientResponseHandler<Result>() {
+			@Override
+			public Result handleResponse(ClassicHttpResponse response) throws HttpException, IOException {
+				HttpEntity entity = response.getEntity();
+				if (HttpCache.isNotModified(response, entry)) {
+					EntityUtils.consume(entity);
+					return httpCache.getResult(task, entry, true);
+				}
+				
+				Result     result    = new Result(task, response, true);
+				boolean    cacheable = httpCache != null && HttpCache.isCacheable(response);
+				BodySink   sink;
+				try {
+					sink = task.newBodySink(result);
+				} catch (RuntimeException e) {
+					// read remaining body to reuse connection
+					EntityUtils.consume(entity);
+					throw e;
+				}
+				if (sink == null) {
+					byte[] body = Result.toByteArray(response);
+					if (cacheable) httpCache.put(task.uri, response, body);
+					return new Result(result, body);
+				}
+				if (cacheable) sink = httpCache.newSink(task.uri, response, sink);
+				
+				try {
+					if (entity != null) {
+						try (InputStream is = entity.getContent()) {
+							BodySink.copy(is, sink);
+						}
+					}
+					sink.complete();
+				} catch (IOException | RuntimeException e) {
+					sink.abort();
+					throw e;
+				}
+				return result;
+			}
+		};
+		
+		// timeout is time to wait for connection of pool
+		return requester.execute(target, request, leaseTimeout, coreContext, responseHandler);
+	}
+	private void logProgress(Task task) {
+		int count = startCount.getAndIncrement();
+		if ((count % 1000) == 0) {
+			logger.info("{}", String.format("%4d / %4d  %s", count, tracker.addCount(), task.uri));
+		}
+	}
+	
+	//
+	// Virtual thread mode. Each task runs in own virtual thread and waits for permit of its host, then for permit of all host.
+	// Blocked virtual thread doesn't hold platform thread, so number of task in progress is bounded by maxPerHost of each host, not by threadCount.
+	// totalSemaphore has maxTotal permits, so task with permit doesn't wait for connection of pool.
+	//
+	private static final class Host {
+		private final Semaphore     semaphore;
+		private final AtomicInteger runCount = new AtomicInteger();
+		
+		Host(int permits) {
+			this.semaphore = new Semaphore(permits);
+		}
+	}
+	private final Map<HttpHost, Host> hostMap        = new ConcurrentHashMap<>();
+	private Semaphore                 totalSemaphore = null;
+	
+	// Start virtual thread for each task in queue
+	private void submitVirtualThread() {
+		for(;;) {
+			final Task task = taskQueue.poll();
+			if (task == null) break;
+			
+			final Host      host  = hostMap.computeIfAbsent(HttpHost.create(task.uri), o -> new Host(maxPerHost));
+			final Semaphore total = totalSemaphore;
+			executor.execute(() -> {
+				try {
+					host.semaphore.acquire();
+					try {
+						total.acquire();
+					} catch (InterruptedException e) {
+						host.semaphore.release();
+						throw e;
+					}
+				} catch (InterruptedException e) {
+					String exceptionName = e.getClass().getSimpleName();
+					logger.warn("{} {}", exceptionName, e);
+					tracker.done();
+					return;
+				}
+				try {
+					logProgress(task);
+					host.runCount.incrementAndGet();
+					
+					process(task, HttpCoreContext.create());
+				} finally {
+					total.release();
+					host.semaphore.release();
+					tracker.done();
+				}
+			});
+		}
+	}
+	
 	private class Worker implements Runnable {
 		private String name;
 		private int    runCount;
@@ -146,38 +360,27 @@ public final class DownloadSync implements Download {
 	        final HttpCoreContext coreContext = HttpCoreContext.create();
 	        
 			for(;;) {
-				final int  count;
-				final Task task;
-				synchronized (taskQueue) {
-					count = taskQueueSize - taskQueue.size();
-					task  = taskQueue.poll();
+				final Task task = taskQueue.poll();
+				if (task == null) {
+					// Task in progress can add follow up task. Stop after all task is completed.
+					if (tracker.isCompleted()) break;
+					try {
+						tracker.awaitTask(taskQueue);
+					} catch (InterruptedException e) {
+						String exceptionName = e.getClass().getSimpleName();
+						logger.warn("{} {}", exceptionName, e);
+						break;
+					}
+					continue;
 				}
-				if (task == null) break;
 				
-				if ((count % 1000) == 0) {
-					logger.info("{}", String.format("%4d / %4d  %s", count, taskQueueSize, task.uri));
-				}
+				logProgress(task);
 				runCount++;
 
-	            try {
-					HttpHost target = HttpHost.create(task.uri);
-					
-		            ClassicHttpRequest request = new BasicClassicHttpRequest(Method.GET, task.uri);
-		            headerList.forEach(o -> request.addHeader(o));
-		            
-		            HttpClientResponseHandler<Result> responseHandler = new HttpClientResponseHandler<Result>() {
-		        		@Override
-		        		public Result handleResponse(ClassicHttpResponse response) throws HttpException, IOException {
-		        			return new Result(task, response);
-		        		}
-		            };
-
-		            Result result = requester.execute(target, request, Timeout.ofSeconds(5), coreContext, responseHandler);
-		            task.process(result);
-
-				} catch (HttpException | IOException e) {
-					String exceptionName = e.getClass().getSimpleName();
-					logger.warn("{} {}", exceptionName, e);
+				try {
+					process(task, coreContext);
+				} finally {
+					tracker.done();
 				}
 			}
 		}
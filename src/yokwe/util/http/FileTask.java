@@ -4,7 +4,22 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
@@ -31,6 +46,9 @@ public class FileTask extends Task {
 		
 		@Override
 		public void accept(Result result) {
+			// body is already written by FileSink
+			if (result.body == null) return;
+			
 			switch (mode) {
 			case BINARY:
 				saveAsBinaryFile(result);
@@ -79,11 +97,143 @@ public class FileTask extends Task {
 		}
 	}
 	
+	//
+	// Write body to temporary file in same directory through FileChannel, and rename to file when body is completed.
+	// So reader of file never sees partial content, and whole body is not held in memory.
+	// In TEXT mode, body is decoded with charset of response and encoded with default charset as it arrives.
+	//
+	private static class FileSink implements BodySink {
+		private final File        file;
+		private final Path        tempPath;
+		private final FileChannel channel;
+		
+		// for TEXT mode
+		private final CharsetDecoder decoder;
+		private final ByteBuffer     byteBuffer;
+		private final CharBuffer     charBuffer;
+		private final Writer         writer;
+		
+		FileSink(File file, Mode mode, Result result) throws IOException {
+			if (!file.getParentFile().exists()) {
+				file.getParentFile().mkdirs();
+			}
+			
+			this.file     = file;
+			// Files.createTempFile is not used, as it creates file only owner can read
+			this.tempPath = file.getParentFile().toPath().resolve(String.format(".%s.%016x.tmp", file.getName(), ThreadLocalRandom.current().nextLong()));
+			this.channel  = FileChannel.open(tempPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+			
+			if (mode == Mode.TEXT) {
+				// same replacement of malformed input as new String(byte[], Charset)
+				this.decoder    = result.charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+				this.byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+				this.charBuffer = CharBuffer.allocate(BUFFER_SIZE);
+				// same charset as FileWriter
+				this.writer     = new OutputStreamWriter(Channels.newOutputStream(channel));
+			} else {
+				this.decoder    = null;
+				this.byteBuffer = null;
+				this.charBuffer = null;
+				this.writer     = null;
+			}
+		}
+		
+		@Override
+		public void write(ByteBuffer src) throws IOException {
+			if (decoder == null) {
+				while(src.hasRemaining()) {
+					channel.write(src);
+				}
+			} else {
+				while(src.hasRemaining()) {
+					int        length = Math.min(src.remaining(), byteBuffer.remaining());
+					ByteBuffer slice  = src.duplicate();
+					slice.limit(slice.position() + length);
+					byteBuffer.put(slice);
+					src.position(src.position() + length);
+					decode(false);
+				}
+			}
+		}
+		private void decode(boolean endOfInput) throws IOException {
+			byteBuffer.flip();
+			for(;;) {
+				CoderResult coderResult = decoder.decode(byteBuffer, charBuffer, endOfInput);
+				writeChar();
+				if (!coderResult.isOverflow()) break;
+			}
+			// keep incomplete byte sequence of last character for next write
+			byteBuffer.compact();
+		}
+		private void writeChar() throws IOException {
+			writer.write(charBuffer.array(), 0, charBuffer.position());
+			charBuffer.clear();
+		}
+		
+		@Override
+		public void complete() throws IOException {
+			if (decoder == null) {
+				channel.close();
+			} else {
+				decode(true);
+				while(decoder.flush(charBuffer).isOverflow()) {
+					writeChar();
+				}
+				writeChar();
+				writer.close();
+			}
+			
+			Path path = file.toPath();
+			try {
+				Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		
+		@Override
+		public void abort() {
+			try {
+				channel.close();
+				Files.deleteIfExists(tempPath);
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.warn("{} {}", exceptionName, e);
+			}
+		}
+	}
+	
+	private final File file;
+	private final Mode mode;
+	
 	private FileTask(URI uri, File file, Mode mode) {
 		super(uri, new MyConsumer(file, mode));
+		this.file = file;
+		this.mode = mode;
 	}
 	private FileTask(String uriString, File file, Mode mode) {
 		super(uriString, new MyConsumer(file, mode));
+		this.file = file;
+		this.mode = mode;
+	}
+	
+	@Override
+	public BodySink newBodySink(Result result) {
+		if (mode == Mode.TEXT && result.charset == null) {
+			logger.error("charset is null");
+			logger.error("  uri         {}", result.task.uri);
+			logger.error("  contentType {}", result.contentType);
+			throw new UnexpectedException("charset is null");
+		}
+		try {
+			return new FileSink(file, mode, result);
+		} catch (IOException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.error("{} {}", exceptionName, e);
+			throw new UnexpectedException(exceptionName, e);
+		}
 	}
 
 	public static FileTask binary(URI uri, File file) {
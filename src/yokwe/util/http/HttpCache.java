@@ -0,0 +1,471 @@
+package yokwe.util.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import yokwe.UnexpectedException;
+
+//
+// Disk cache of HTTP response for conditional GET. Shared by DownloadAsync, DownloadSync and HttpUtil.
+// Body of response with ETag or Last-Modified is saved in file, and metadata is saved in properties file next to body.
+// Request of cached URI has If-None-Match and If-Modified-Since, and response of 304 Not Modified is served from cached body.
+// Total size of body is bounded by maxSize. Least recently used entry is evicted.
+//
+public final class HttpCache {
+	static final Logger logger = LoggerFactory.getLogger(HttpCache.class);
+
+	// header of response saved in metadata
+	private static final String[] SAVED_HEADERS = {"Content-Type", "Content-Encoding", "ETag", "Last-Modified"};
+
+	private static final String META_SUFFIX = ".meta";
+	private static final String BODY_SUFFIX = ".body";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	public static final class Entry {
+		public final URI    uri;
+		public final String etag;
+		public final String lastModified;
+		public final long   size;
+
+		private final String   key;
+		private final Path     bodyPath;
+		private final Header[] headers;
+
+		private Entry(URI uri, String key, Path bodyPath, Header[] headers, long size) {
+			this.uri          = uri;
+			this.key          = key;
+			this.bodyPath     = bodyPath;
+			this.headers      = headers;
+			this.size         = size;
+
+			String etag         = null;
+			String lastModified = null;
+			for(Header header: headers) {
+				if (header.getName().equalsIgnoreCase("ETag"))          etag         = header.getValue();
+				if (header.getName().equalsIgnoreCase("Last-Modified")) lastModified = header.getValue();
+			}
+			this.etag         = etag;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("{%s %d %s %s}", uri, size, etag, lastModified);
+		}
+	}
+
+	private final Path dir;
+	private final long maxSize;
+
+	// access ordered. first entry is least recently used. guarded by this
+	private final LinkedHashMap<String, Entry> entryMap  = new LinkedHashMap<>(16, 0.75f, true);
+	private long                               totalSize = 0;
+
+	public HttpCache(String dirPath, long maxSize) {
+		this.dir     = Paths.get(dirPath);
+		this.maxSize = maxSize;
+
+		try {
+			Files.createDirectories(dir);
+			load();
+		} catch (IOException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.error("{} {}", exceptionName, e);
+			throw new UnexpectedException(exceptionName, e);
+		}
+		logger.info("cache {} entry {} size {}", dir, entryMap.size(), totalSize);
+	}
+
+	// Entry of previous run in order of last access
+	private void load() throws IOException {
+		List<Path> metaList = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for(Path path: stream) {
+				String name = path.getFileName().toString();
+				if (name.endsWith(META_SUFFIX)) {
+					metaList.add(path);
+				} else if (name.endsWith(TEMP_SUFFIX)) {
+					// left by failed write
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+		metaList.sort(Comparator.comparing(o -> lastModifiedTime(o)));
+
+		for(Path metaPath: metaList) {
+			Entry entry = readMeta(metaPath);
+			if (entry == null) {
+				logger.warn("remove broken cache entry {}", metaPath);
+				Files.deleteIfExists(metaPath);
+				continue;
+			}
+			entryMap.put(entry.key, entry);
+			totalSize += entry.size;
+		}
+
+		// remove body without entry
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + BODY_SUFFIX)) {
+			for(Path path: stream) {
+				String name = path.getFileName().toString();
+				String key  = name.substring(0, name.indexOf('-'));
+				Entry  entry = entryMap.get(key);
+				if (entry == null || !entry.bodyPath.equals(path)) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+		evict();
+	}
+	private static FileTime lastModifiedTime(Path path) {
+		try {
+			return Files.getLastModifiedTime(path);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	private static String key(URI uri) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(uri.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for(byte b: digest) {
+				sb.append(String.format("%02x", b & 0xff));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.error("{} {}", exceptionName, e);
+			throw new UnexpectedException(exceptionName, e);
+		}
+	}
+	private Path metaPath(String key) {
+		return dir.resolve(key + META_SUFFIX);
+	}
+	// Each version of body has own file, so body being read is not overwritten by newer version
+	private Path newBodyPath(String key) {
+		return dir.resolve(String.format("%s-%016x%s", key, ThreadLocalRandom.current().nextLong(), BODY_SUFFIX));
+	}
+	private Path newTempPath(String key) {
+		return dir.resolve(String.format("%s-%016x%s", key, ThreadLocalRandom.current().nextLong(), TEMP_SUFFIX));
+	}
+
+	private Entry readMeta(Path metaPath) {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(metaPath, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		} catch (IOException | IllegalArgumentException e) {
+			return null;
+		}
+		String uri  = properties.getProperty("uri");
+		String body = properties.getProperty("body");
+		String size = properties.getProperty("size");
+		if (uri == null || body == null || size == null) return null;
+
+		Path bodyPath = dir.resolve(body);
+		try {
+			if (Files.size(bodyPath) != Long.parseLong(size)) return null;
+		} catch (IOException | NumberFormatException e) {
+			return null;
+		}
+
+		List<Header> headerList = new ArrayList<>();
+		for(String name: SAVED_HEADERS) {
+			String value = properties.getProperty("header." + name);
+			if (value != null) headerList.add(new BasicHeader(name, value));
+		}
+		String key = metaPath.getFileName().toString();
+		key = key.substring(0, key.length() - META_SUFFIX.length());
+		return new Entry(URI.create(uri), key, bodyPath, headerList.toArray(new Header[0]), Long.parseLong(size));
+	}
+	private void writeMeta(Entry entry) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("uri",  entry.uri.toString());
+		properties.setProperty("body", entry.bodyPath.getFileName().toString());
+		properties.setProperty("size", Long.toString(entry.size));
+		for(Header header: entry.headers) {
+			properties.setProperty("header." + header.getName(), header.getValue());
+		}
+
+		Path tempPath = newTempPath(entry.key);
+		try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+			properties.store(writer, null);
+		}
+		Files.move(tempPath, metaPath(entry.key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Returns cached entry of uri, or null if uri is not cached
+	public Entry get(URI uri) {
+		Entry entry;
+		synchronized (this) {
+			entry = entryMap.get(key(uri));
+		}
+		if (entry != null) {
+			// keep order of last access for next run
+			try {
+				Files.setLastModifiedTime(metaPath(entry.key), FileTime.fromMillis(System.currentTimeMillis()));
+			} catch (IOException e) {
+				// entry is evicted
+			}
+		}
+		return entry;
+	}
+
+	// Add header of conditional GET for entry
+	public static void setConditionalHeader(HttpRequest request, Entry entry) {
+		if (entry == null) return;
+		if (entry.etag != null) {
+			request.setHeader("If-None-Match", entry.etag);
+		}
+		if (entry.lastModified != null) {
+			request.setHeader("If-Modified-Since", entry.lastModified);
+		}
+	}
+
+	public static void removeConditionalHeader(HttpRequest request) {
+		request.removeHeaders("If-None-Match");
+		request.removeHeaders("If-Modified-Since");
+	}
+
+	// true if response is 304 Not Modified for entry
+	public static boolean isNotModified(HttpResponse response, Entry entry) {
+		return entry != null && response.getCode() == HttpStatus.SC_NOT_MODIFIED;
+	}
+
+	// true if body of response can be validated by conditional GET
+	public static boolean isCacheable(HttpResponse response) {
+		if (response.getCode() != HttpStatus.SC_OK) return false;
+		if (response.getFirstHeader("ETag") == null && response.getFirstHeader("Last-Modified") == null) return false;
+		Header cacheControl = response.getFirstHeader("Cache-Control");
+		if (cacheControl != null && cacheControl.getValue().toLowerCase().contains("no-store")) return false;
+		return true;
+	}
+
+	// Response of cached body. Code is 200 and has saved header.
+	public HttpResponse getResponse(Entry entry) {
+		BasicHttpResponse response = new BasicHttpResponse(HttpStatus.SC_OK, "OK");
+		for(Header header: entry.headers) {
+			response.addHeader(header);
+		}
+		return response;
+	}
+	//
+	// Body of entry returned by get can be removed by newer version or eviction before response of conditional GET arrives.
+	// Then entry is dropped and MissingBodyException is thrown. Request again without conditional header.
+	//
+	@SuppressWarnings("serial")
+	public static final class MissingBodyException extends IOException {
+		public MissingBodyException(Entry entry) {
+			super("missing body " + entry.uri);
+		}
+	}
+	public InputStream getBody(Entry entry) throws IOException {
+		try {
+			return Files.newInputStream(entry.bodyPath);
+		} catch (NoSuchFileException e) {
+			remove(entry);
+			throw new MissingBodyException(entry);
+		}
+	}
+	public byte[] getBodyAsByteArray(Entry entry) throws IOException {
+		try (InputStream is = getBody(entry)) {
+			return is.readAllBytes();
+		}
+	}
+
+	// Result of cached entry. Body is passed to BodySink of task, or set to Result.body if task has no sink.
+	// Throws MissingBodyException before task sees result, so task can be requested again.
+	Result getResult(Task task, Entry entry, boolean assumeText) throws IOException {
+		// open body first. once opened, body can be read even if file is removed
+		try (InputStream is = getBody(entry)) {
+			Result   result = new Result(task, getResponse(entry), assumeText);
+			BodySink sink   = task.newBodySink(result);
+			if (sink == null) return new Result(result, is.readAllBytes());
+
+			try {
+				BodySink.copy(is, sink);
+				sink.complete();
+			} catch (IOException | RuntimeException e) {
+				sink.abort();
+				throw e;
+			}
+			return result;
+		}
+	}
+
+	// Save body of response
+	public void put(URI uri, HttpResponse response, byte[] body) {
+		if (body == null || maxSize < body.length) return;
+
+		String key      = key(uri);
+		Path   tempPath = newTempPath(key);
+		try {
+			try (OutputStream os = Files.newOutputStream(tempPath, StandardOpenOption.CREATE_NEW)) {
+				os.write(body);
+			}
+			add(uri, key, tempPath, response, body.length);
+		} catch (IOException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.warn("{} {}", exceptionName, e);
+			deleteQuietly(tempPath);
+		}
+	}
+
+	// Returns sink that saves body of response while passing it to sink
+	public BodySink newSink(URI uri, HttpResponse response, BodySink sink) {
+		String key      = key(uri);
+		Path   tempPath = newTempPath(key);
+		try {
+			return new TeeSink(uri, key, tempPath, response, sink);
+		} catch (IOException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.warn("{} {}", exceptionName, e);
+			deleteQuietly(tempPath);
+			return sink;
+		}
+	}
+	private final class TeeSink implements BodySink {
+		private final URI          uri;
+		private final String       key;
+		private final Path         tempPath;
+		private final HttpResponse response;
+		private final BodySink     sink;
+		private final FileChannel  channel;
+		private long               size;
+
+		TeeSink(URI uri, String key, Path tempPath, HttpResponse response, BodySink sink) throws IOException {
+			this.uri      = uri;
+			this.key      = key;
+			this.tempPath = tempPath;
+			this.response = response;
+			this.sink     = sink;
+			this.channel  = FileChannel.open(tempPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+			this.size     = 0;
+		}
+
+		@Override
+		public void write(ByteBuffer src) throws IOException {
+			ByteBuffer copy = src.duplicate();
+			sink.write(src);
+
+			size += copy.remaining();
+			while(copy.hasRemaining()) {
+				channel.write(copy);
+			}
+		}
+		@Override
+		public void complete() throws IOException {
+			sink.complete();
+
+			channel.close();
+			if (size <= maxSize) {
+				add(uri, key, tempPath, response, size);
+			} else {
+				deleteQuietly(tempPath);
+			}
+		}
+		@Override
+		public void abort() {
+			sink.abort();
+
+			try {
+				channel.close();
+			} catch (IOException e) {
+				//
+			}
+			deleteQuietly(tempPath);
+		}
+	}
+
+	// Register body in tempPath as new entry of uri
+	private void add(URI uri, String key, Path tempPath, HttpResponse response, long size) throws IOException {
+		List<Header> headerList = new ArrayList<>();
+		for(String name: SAVED_HEADERS) {
+			Header header = response.getFirstHeader(name);
+			if (header != null) headerList.add(new BasicHeader(name, header.getValue()));
+		}
+		Path  bodyPath = newBodyPath(key);
+		Entry entry    = new Entry(uri, key, bodyPath, headerList.toArray(new Header[0]), size);
+		Files.move(tempPath, bodyPath, StandardCopyOption.ATOMIC_MOVE);
+
+		synchronized (this) {
+			writeMeta(entry);
+			Entry old = entryMap.put(key, entry);
+			if (old != null) {
+				totalSize -= old.size;
+				deleteQuietly(old.bodyPath);
+			}
+			totalSize += size;
+			evict();
+		}
+	}
+
+	// Drop entry if it is still current entry of its uri
+	private synchronized void remove(Entry entry) {
+		if (entryMap.get(entry.key) != entry) return;
+		entryMap.remove(entry.key);
+		totalSize -= entry.size;
+		deleteQuietly(metaPath(entry.key));
+		deleteQuietly(entry.bodyPath);
+	}
+
+	// Remove least recently used entry until total size is not greater than maxSize. Caller holds lock.
+	private void evict() {
+		for(Iterator<Map.Entry<String, Entry>> i = entryMap.entrySet().iterator(); maxSize < totalSize && i.hasNext();) {
+			Entry entry = i.next().getValue();
+			i.remove();
+			totalSize -= entry.size;
+			deleteQuietly(metaPath(entry.key));
+			deleteQuietly(entry.bodyPath);
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.warn("{} {}", exceptionName, e);
+		}
+	}
+
+	public synchronized int size() {
+		return entryMap.size();
+	}
+	public synchronized long totalSize() {
+		return totalSize;
+	}
+}
@@ -15,6 +15,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpHost;
@@ -82,6 +83,7 @@ public class HttpUtil {
 		String  cookie;
 		String  connection;
 		boolean rawData;
+		HttpCache cache;
 		
 		private Context() {
 			trace      = DEFAULT_TRACE;
@@ -92,6 +94,7 @@ public class HttpUtil {
 			cookie     = DEFAULT_COOKIE;
 			connection = DEFAULT_CONNECTION;
 			rawData    = DEFAULT_RAW_DATA;
+			cache      = null;
 		}
 	}
 	
@@ -182,6 +185,11 @@ public class HttpUtil {
 		context.rawData = newValue;
 		return this;
 	}
+	// Send conditional GET and serve 304 Not Modified from cache
+	public HttpUtil withCache(HttpCache newValue) {
+		context.cache = newValue;
+		return this;
+	}
 	
 	private static class MyResponse {
 		HttpResponse response;
@@ -216,6 +224,14 @@ public class HttpUtil {
 			}
 			
 		}
+		// response of cached entry
+		MyResponse(HttpCache cache, HttpCache.Entry entry) throws IOException {
+			this.response = cache.getResponse(entry);
+			
+			Header contentEncoding = response.getFirstHeader("Content-Encoding");
+			this.charset = contentEncoding == null ? null : Charset.forName(contentEncoding.getValue());
+			this.content = cache.getBodyAsByteArray(entry);
+		}
 	}
 	
 	public Result download(String url) {
@@ -235,11 +251,26 @@ public class HttpUtil {
 		if (context.connection != null) {
 			request.setHeader("Connection", context.connection);
 		}
+		HttpCache.Entry entry = context.cache == null ? null : context.cache.get(uri);
+		HttpCache.setConditionalHeader(request, entry);
 
 		int retryCount = 0;
 		for(;;) {
 			try {
 				MyResponse   myResponse   = requester.execute(target, request, Timeout.ofSeconds(5), httpContext, o -> new MyResponse(o));
+				if (HttpCache.isNotModified(myResponse.response, entry)) {
+					try {
+						myResponse = new MyResponse(context.cache, entry);
+					} catch (HttpCache.MissingBodyException e) {
+						// cached body is removed after request. request again without conditional header
+						logger.warn("{}", e.getMessage());
+						entry = null;
+						HttpCache.removeConditionalHeader(request);
+						continue;
+					}
+				} else if (context.cache != null && HttpCache.isCacheable(myResponse.response)) {
+					context.cache.put(uri, myResponse.response, myResponse.content);
+				}
 				HttpResponse response     = myResponse.response;
 		        int          code         = response.getCode();
 		        String       reasonPhrase = response.getReasonPhrase();
@@ -7,6 +7,9 @@ public class RequesterBuilder {
 	int maxTotal                    = 50;
 	int defaultMaxPerRoute          = 20;
 	int soTimeout                   = 30; // 30 seconds
+	int leaseTimeout                = 300; // 300 seconds, used by DownloadSync
+	int maxInFlightPerRoute         = 100; // used by DownloadAsync
+	boolean virtualThread           = false; // used by DownloadSync
 	HttpVersionPolicy versionPolicy = HttpVersionPolicy.NEGOTIATE;
 	
     private RequesterBuilder() {
@@ -26,8 +29,24 @@ public class RequesterBuilder {
 		this.defaultMaxPerRoute = newValue;
 		return this;
 	}
+	// Maximum number of outstanding request for each host. HTTP/2 connection carries many request at same time.
+	public RequesterBuilder setMaxInFlightPerRoute(int newValue) {
+		this.maxInFlightPerRoute = newValue;
+		return this;
+	}
+	// Run each task in own virtual thread. Number of running task is bounded by defaultMaxPerRoute for each host and by maxTotal for all host.
+	// Ignored if virtual thread is not available in running JVM.
+	public RequesterBuilder setVirtualThread(boolean newValue) {
+		this.virtualThread = newValue;
+		return this;
+	}
 	public RequesterBuilder setSoTimeout(int newValue) {
 		this.soTimeout = newValue;
 		return this;
 	}
+	// Maximum seconds to wait for connection of pool. Task waits again after timeout, not dropped.
+	public RequesterBuilder setLeaseTimeout(int newValue) {
+		this.leaseTimeout = newValue;
+		return this;
+	}
 }
\ No newline at end of file
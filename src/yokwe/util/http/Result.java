@@ -40,59 +40,43 @@ public class Result {
 	public final Charset         charset;    // derived charset from content type
 	
 	public Result(Task task, Message<HttpResponse, byte[]> message) {
-		this.task    = task;
-		
-		this.head    = message.getHead();
-		this.body    = message.getBody();
-		
-		this.version = head.getVersion();
-		this.code    = head.getCode();
-		
-		{
-			Header contentTypeHeader = head.getFirstHeader("Content-Type");
-			if (contentTypeHeader != null) {
-				this.contentType  = ContentType.parse(contentTypeHeader.getValue());
-				String mimeType = contentType.getMimeType();
-				Charset charset = contentType.getCharset();
-				if (charset == null) {
-					if (charsetMap.containsKey(mimeType)) {
-						this.charset = charsetMap.get(mimeType);
-					} else {
-						// don't assume charset
-						this.charset = null;
-					}
-				} else {
-					this.charset = charset;
-				}
-			} else {
-				logger.warn("no Content-Type header");
-				this.contentType = null;
-				this.charset     = null;
+		this(new Result(task, message.getHead(), false), message.getBody());
+	}
+	
+	public Result(Task task, ClassicHttpResponse response) {
+		this(new Result(task, response, true), toByteArray(response));
+	}
+	static byte[] toByteArray(ClassicHttpResponse response) {
+		HttpEntity entity = response.getEntity();
+		if (entity == null) {
+			return null;
+		} else {
+			try {
+				return EntityUtils.toByteArray(entity);
+			} catch (IOException e) {
+				return null;
 			}
 		}
 	}
 	
-	public Result(Task task, ClassicHttpResponse response) {
+	// Result with body
+	Result(Result result, byte[] body) {
+		this.task        = result.task;
+		this.head        = result.head;
+		this.body        = body;
+		this.version     = result.version;
+		this.code        = result.code;
+		this.contentType = result.contentType;
+		this.charset     = result.charset;
+	}
+	
+	// Result without body. Used when body is passed to BodySink of task.
+	// assumeText is true to assume UTF_8 for content type of text/* without charset
+	Result(Task task, HttpResponse head, boolean assumeText) {
 		this.task    = task;
-//		this.message = message;
 		
-		this.head    = response;
-		
-		{
-			byte[] byteArray;
-			
-			HttpEntity entity = response.getEntity();
-			if (entity == null) {
-				byteArray = null;
-			} else {
-				try {
-					byteArray = EntityUtils.toByteArray(entity);
-				} catch (IOException e) {
-					byteArray = null;
-				}
-			}
-			this.body = byteArray;
-		}
+		this.head    = head;
+		this.body    = null;
 		
 		this.version = head.getVersion();
 		this.code    = head.getCode();
@@ -107,11 +91,11 @@ public class Result {
 					if (charsetMap.containsKey(mimeType)) {
 						this.charset = charsetMap.get(mimeType);
 					} else {
-						if (mimeType.startsWith("text/")) {
+						if (assumeText && mimeType.startsWith("text/")) {
 							logger.warn("assume charset UTF_8 for contet type of text/*");
 							this.charset = StandardCharsets.UTF_8;
 						} else {
-//								logger.warn("assume charset null for contet type of {}!", mimeType);
+							// don't assume charset
 							this.charset = null;
 						}
 					}
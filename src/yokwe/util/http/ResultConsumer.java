@@ -0,0 +1,140 @@
+package yokwe.util.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+//
+// Builds Result of task from async response.
+// If task provides BodySink, body is passed to sink as it arrives. Otherwise body is buffered in Result.body.
+//
+final class ResultConsumer implements AsyncResponseConsumer<Result> {
+	private final Task            task;
+	private final HttpCache       httpCache;
+	private final HttpCache.Entry entry;
+	
+	private BasicResponseConsumer<byte[]> delegate = null;
+	private BodySink                      sink     = null;
+	private boolean                       complete = false;
+	private Result                        result   = null;
+	private FutureCallback<Result>        callback = null;
+	
+	// entry is cached entry of conditional GET or null
+	ResultConsumer(Task task, HttpCache httpCache, HttpCache.Entry entry) {
+		this.task      = task;
+		this.httpCache = httpCache;
+		this.entry     = entry;
+	}
+	
+	@Override
+	public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context, FutureCallback<Result> resultCallback) throws HttpException, IOException {
+		if (HttpCache.isNotModified(response, entry)) {
+			// 304 has no body
+			final Result result;
+			try {
+				result = httpCache.getResult(task, entry, false);
+			} catch (HttpCache.MissingBodyException e) {
+				// connection is still usable. caller requests again without conditional header
+				resultCallback.failed(e);
+				return;
+			}
+			resultCallback.completed(result);
+			return;
+		}
+		
+		final Result  head      = new Result(task, response, false);
+		final boolean cacheable = httpCache != null && HttpCache.isCacheable(response);
+		sink = task.newBodySink(head);
+		if (sink == null) {
+			delegate = new BasicResponseConsumer<>(new BasicAsyncEntityConsumer());
+			delegate.consumeResponse(response, entityDetails, context, new FutureCallback<Message<HttpResponse, byte[]>>() {
+				@Override
+				public void completed(Message<HttpResponse, byte[]> message) {
+					byte[] body = message.getBody();
+					if (cacheable) httpCache.put(task.uri, response, body);
+					resultCallback.completed(new Result(head, body));
+				}
+				@Override
+				public void failed(Exception e) {
+					resultCallback.failed(e);
+				}
+				@Override
+				public void cancelled() {
+					resultCallback.cancelled();
+				}
+			});
+		} else {
+			if (cacheable) sink = httpCache.newSink(task.uri, response, sink);
+			result   = head;
+			callback = resultCallback;
+			if (entityDetails == null) {
+				// no body
+				streamEnd(null);
+			}
+		}
+	}
+	
+	@Override
+	public void informationResponse(HttpResponse response, HttpContext context) throws HttpException, IOException {
+	}
+	
+	@Override
+	public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+		if (delegate != null) {
+			delegate.updateCapacity(capacityChannel);
+		} else {
+			capacityChannel.update(Integer.MAX_VALUE);
+		}
+	}
+	
+	@Override
+	public void consume(ByteBuffer src) throws IOException {
+		if (delegate != null) {
+			delegate.consume(src);
+		} else if (sink != null) {
+			sink.write(src);
+		}
+	}
+	
+	@Override
+	public void streamEnd(List<? extends Header> trailers) throws HttpException, IOException {
+		if (delegate != null) {
+			delegate.streamEnd(trailers);
+		} else if (sink != null) {
+			sink.complete();
+			complete = true;
+			callback.completed(result);
+		}
+	}
+	
+	@Override
+	public void failed(Exception cause) {
+		if (delegate != null) {
+			delegate.failed(cause);
+		} else if (callback != null) {
+			callback.failed(cause);
+		}
+	}
+	
+	@Override
+	public void releaseResources() {
+		if (delegate != null) {
+			delegate.releaseResources();
+		}
+		if (sink != null && !complete) {
+			sink.abort();
+		}
+	}
+}
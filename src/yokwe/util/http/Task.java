@@ -18,4 +18,10 @@ public class Task {
 	public void process(Result result) {
 		consumer.accept(result);
 	}
+	
+	// Returns sink to receive response body as it arrives, or null to buffer whole body in Result.body.
+	// result has no body. When sink is returned, Result.body of process is null.
+	public BodySink newBodySink(Result result) {
+		return null;
+	}
 }
\ No newline at end of file
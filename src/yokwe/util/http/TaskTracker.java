@@ -0,0 +1,70 @@
+package yokwe.util.http;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//
+// Count of task that is added but not completed, like Phaser with one party for each task.
+// Unlike CountDownLatch, task can be added while processing, for example from Task.process to follow link.
+// Phaser is not used because number of party of Phaser is limited to 65535.
+//
+final class TaskTracker {
+	private final AtomicInteger addCount  = new AtomicInteger();
+	private final AtomicInteger doneCount = new AtomicInteger();
+	// number of thread in awaitTask. written with lock of this
+	private volatile int        waiting   = 0;
+
+	// Call before task is visible to other thread
+	void add() {
+		addCount.incrementAndGet();
+	}
+	// Returns number of completed task
+	int done() {
+		int count = doneCount.incrementAndGet();
+		if (count == addCount.get()) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+		return count;
+	}
+
+	int addCount() {
+		return addCount.get();
+	}
+	boolean isCompleted() {
+		// read doneCount first. task is added before it is done, so addCount read later is not stale
+		int count = doneCount.get();
+		return addCount.get() <= count;
+	}
+
+	void await() throws InterruptedException {
+		synchronized (this) {
+			while(!isCompleted()) {
+				wait();
+			}
+		}
+	}
+	
+	// Call after task is added to queue. Takes lock only if thread is waiting in awaitTask.
+	// waiting is read after task is added and queue is read after waiting is incremented, so either side sees the other.
+	void signal() {
+		if (waiting == 0) return;
+		synchronized (this) {
+			notifyAll();
+		}
+	}
+	// Wait until queue has task or all task is completed. Caller checks both again after return.
+	void awaitTask(Queue<?> queue) throws InterruptedException {
+		synchronized (this) {
+			waiting++;
+			try {
+				while(queue.isEmpty() && !isCompleted()) {
+					wait();
+				}
+			} finally {
+				waiting--;
+			}
+		}
+	}
+}
@@ -18,6 +18,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import yokwe.UnexpectedException;
+import yokwe.util.ClassValueCache;
+import yokwe.util.StringPool;
 import yokwe.util.json.JSONBase.DateTimeFormat;
 import yokwe.util.json.JSONBase.IgnoreField;
 import yokwe.util.json.JSONBase.JSONName;
@@ -26,7 +28,7 @@ import yokwe.util.json.JSONBase.JSONName;
 public class ClassInfo {
 	static final Logger logger = LoggerFactory.getLogger(ClassInfo.class);
 
-	private static Map<String, ClassInfo> map = new TreeMap<>();
+	private static final ClassValueCache<ClassInfo> cache = new ClassValueCache<>(ClassInfo::getInstance);
 	
 	public static class FieldInfo {
 		public final Field    field;
@@ -42,6 +44,13 @@ public class ClassInfo {
 		
 		public final DateTimeFormatter dateTimeFormatter;
 		
+		// key of schema drift report
+		final SchemaDrift.Key missingKey;
+		final SchemaDrift.Key defaultKey;
+		
+		// null if field has no Intern annotation
+		final StringPool stringPool;
+		
 		FieldInfo(Field field) {
 			this.field = field;
 			
@@ -72,7 +81,16 @@ public class ClassInfo {
 			} else {
 				enumMap = null;
 			}
-
+			
+			String clazzName = field.getDeclaringClass().getName();
+			this.missingKey = new SchemaDrift.Key(SchemaDrift.Kind.MISSING, clazzName, this.jsonName);
+			this.defaultKey = new SchemaDrift.Key(SchemaDrift.Kind.DEFAULT, clazzName, this.name);
+			
+			this.stringPool = StringPool.of(field);
+		}
+		
+		String intern(String value) {
+			return stringPool == null ? value : stringPool.intern(value);
 		}
 		
 		@Override
@@ -85,17 +103,13 @@ public class ClassInfo {
 		return get(o.getClass());
 	}
 	public static ClassInfo get(Class<?> clazz) {
+		return cache.get(clazz);
+	}
+	private static ClassInfo getInstance(Class<?> clazz) {
 		if (JSONBase.class.isAssignableFrom(clazz)) {
 			@SuppressWarnings("unchecked")
 			Class<JSONBase> clazzBase = (Class<JSONBase>)clazz;
-
-			String key = clazzBase.getName();
-			
-			if (map.containsKey(key)) return map.get(key);
-			
-			ClassInfo value = new ClassInfo(clazzBase);
-			map.put(key, value);
-			return value;
+			return new ClassInfo(clazzBase);
 		} else {
 			logger.error("Unexpected clazz {}", clazz.getClass().getName());
 			throw new UnexpectedException("Unexpected clazz");
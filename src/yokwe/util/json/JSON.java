@@ -1,18 +1,41 @@
 package yokwe.util.json;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedWriter;
+import java.io.CharArrayReader;
+import java.io.Closeable;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -21,28 +44,36 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonNumber;
-import javax.json.JsonObject;
-import javax.json.JsonReader;
-import javax.json.JsonString;
-import javax.json.JsonValue;
-import javax.json.JsonValue.ValueType;
+import javax.json.JsonException;
 import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import yokwe.UnexpectedException;
-import yokwe.util.GenericInfo;
+import yokwe.util.ClassUtil;
+import yokwe.util.ClassValueCache;
+import yokwe.util.StringPool;
 
 public final class JSON {
 	static final Logger logger = LoggerFactory.getLogger(JSON.class);
@@ -64,6 +95,38 @@ public final class JSON {
 		String value();
 	}
 	
+	//
+	// Field accessor of class generated by yokwe.util.codec.CodecProcessor at compile time.
+	// Generated class is used in place of MethodHandle if exists. Index is position of non-static field in source order.
+	// Codec is not used if names differs from order of getDeclaredFields, since that order is not specified.
+	//
+	public interface Codec<E> {
+		String SUFFIX = "JSONCodec";
+		
+		// name of field in order of index
+		String[] names();
+		E newInstance();
+		
+		void    set       (E object, int index, Object  value);
+		void    setDouble (E object, int index, double  value);
+		void    setLong   (E object, int index, long    value);
+		void    setInt    (E object, int index, int     value);
+		void    setBoolean(E object, int index, boolean value);
+		
+		Object  get       (E object, int index);
+		double  getDouble (E object, int index);
+		long    getLong   (E object, int index);
+		int     getInt    (E object, int index);
+		boolean getBoolean(E object, int index);
+		
+		public static UnexpectedException noField(String clazzName, int index) {
+			logger.error("Unexpected field index");
+			logger.error("  clazz  {}", clazzName);
+			logger.error("  index  {}", index);
+			return new UnexpectedException("Unexpected field index");
+		}
+	}
+	
 	public static class FieldInfo {
 		public final Field    field;
 		public final Class<?> clazz;
@@ -76,8 +139,39 @@ public final class JSON {
 		public final Map<String, Enum<?>> enumMap;
 		public final DateTimeFormatter    dateTimeFormatter;
 		
-		FieldInfo(Field field) {
+		// Type argument of Map field and component type of array field, resolved once from field.
+		// mapKeyClass and mapValueClass are null if field is not Map or type argument is not a class.
+		public final boolean  isMap;
+		public final Class<?> mapKeyClass;
+		public final Class<?> mapValueClass;
+		public final Class<?> componentType;
+		
+		// ClassInfo of nested object -- map value for Map, element for array and field type for others.
+		// Resolved at first use and kept, since resolving in constructor recurses on self referencing class.
+		private ClassInfo nestedClassInfo;
+		
+		// Generated accessor of declaring class and index of field. codec is null if not generated.
+		private final Codec<Object> codec;
+		private final int           index;
+		
+		// Accessor built once from field. null if field is not accessible or codec exists.
+		// setter and getter use Object for value. Primitive field has exact typed handle to avoid boxing.
+		private final MethodHandle setter;
+		private final MethodHandle getter;
+		private final MethodHandle primitiveSetter;
+		private final MethodHandle primitiveGetter;
+		
+		// key of schema drift report
+		final SchemaDrift.Key missingKey;
+		final SchemaDrift.Key defaultKey;
+		
+		// null if field has no Intern annotation
+		final StringPool stringPool;
+		
+		FieldInfo(Field field, int index, Codec<Object> codec) {
 			this.field = field;
+			this.index = index;
+			this.codec = codec;
 			
 			this.name  = field.getName();
 			this.clazz = field.getType();
@@ -92,9 +186,31 @@ public final class JSON {
 			
 			this.ignoreField = field.getDeclaredAnnotation(Ignore.class) != null;
 			
+			this.isMap         = type.equals(Map.class);
+			this.componentType = type.getComponentType();
+			{
+				Class<?> mapKeyClass   = null;
+				Class<?> mapValueClass = null;
+				if (isMap && field.getGenericType() instanceof ParameterizedType) {
+					Type[] typeArguments = ((ParameterizedType)field.getGenericType()).getActualTypeArguments();
+					if (typeArguments.length == 2 && typeArguments[0] instanceof Class && typeArguments[1] instanceof Class) {
+						mapKeyClass   = (Class<?>)typeArguments[0];
+						mapValueClass = (Class<?>)typeArguments[1];
+					}
+				}
+				this.mapKeyClass   = mapKeyClass;
+				this.mapValueClass = mapValueClass;
+			}
+			
 			DateTimeFormat dateTimeFormat = field.getDeclaredAnnotation(DateTimeFormat.class);
 			this.dateTimeFormatter = (dateTimeFormat == null) ? null : DateTimeFormatter.ofPattern(dateTimeFormat.value());
 			
+			String clazzName = field.getDeclaringClass().getName();
+			this.missingKey = new SchemaDrift.Key(SchemaDrift.Kind.MISSING, clazzName, this.jsonName);
+			this.defaultKey = new SchemaDrift.Key(SchemaDrift.Kind.DEFAULT, clazzName, name);
+			
+			this.stringPool = StringPool.of(field);
+			
 			if (clazz.isEnum()) {
 				enumMap = new TreeMap<>();
 				
@@ -106,36 +222,238 @@ public final class JSON {
 			} else {
 				enumMap = null;
 			}
+			
+			if (codec != null) {
+				// accessor is not used
+				this.setter          = null;
+				this.primitiveSetter = null;
+				this.getter          = null;
+				this.primitiveGetter = null;
+				return;
+			}
+			{
+				MethodHandle setter          = null;
+				MethodHandle primitiveSetter = null;
+				try {
+					MethodHandle mh = lookup.unreflectSetter(field);
+					setter = mh.asType(MethodType.methodType(void.class, Object.class, Object.class));
+					if (type.isPrimitive()) primitiveSetter = mh.asType(MethodType.methodType(void.class, Object.class, type));
+				} catch (IllegalAccessException e) {
+					// Field is not assignable. Report error when the field is actually assigned.
+				}
+				this.setter          = setter;
+				this.primitiveSetter = primitiveSetter;
+			}
+			{
+				MethodHandle getter          = null;
+				MethodHandle primitiveGetter = null;
+				try {
+					MethodHandle mh = lookup.unreflectGetter(field);
+					getter = mh.asType(MethodType.methodType(Object.class, Object.class));
+					if (type.isPrimitive()) primitiveGetter = mh.asType(MethodType.methodType(type, Object.class));
+				} catch (IllegalAccessException e) {
+					// Field is not readable. Report error when the field is actually read.
+				}
+				this.getter          = getter;
+				this.primitiveGetter = primitiveGetter;
+			}
 		}
-
+		
+		String intern(String value) {
+			return stringPool == null ? value : stringPool.intern(value);
+		}
+		
+		ClassInfo nestedClassInfo() {
+			ClassInfo ret = nestedClassInfo;
+			if (ret == null) {
+				// ClassInfo is immutable and cached, so racing threads store same instance
+				ret = ClassInfo.get(isMap ? mapValueClass : isArray ? componentType : clazz);
+				nestedClassInfo = ret;
+			}
+			return ret;
+		}
+		
+		// check type argument of Map field. key must be String.
+		void checkMap() {
+			if (mapKeyClass == null) {
+				logger.error("Unexpected type argument of map");
+				logger.error("  field  {}", field.toString());
+				throw new UnexpectedException("Unexpected type argument of map");
+			}
+			if (!mapKeyClass.equals(String.class)) {
+				logger.error("Unexptected keyTypeName {}", mapKeyClass.getTypeName());
+				throw new UnexpectedException("Unexptected keyTypeName");
+			}
+		}
+		
+		private UnexpectedException notAccessible() {
+			logger.error("Field is not accessible");
+			logger.error("  field  {}", field.toString());
+			return new UnexpectedException("Field is not accessible");
+		}
+		
+		public void set(Object object, Object value) {
+			if (codec != null) {
+				codec.set(object, index, value);
+				return;
+			}
+			if (setter == null) throw notAccessible();
+			try {
+				setter.invokeExact(object, value);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		public void setDouble(Object object, double value) {
+			if (codec != null) {
+				codec.setDouble(object, index, value);
+				return;
+			}
+			if (primitiveSetter == null) throw notAccessible();
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		public void setLong(Object object, long value) {
+			if (codec != null) {
+				codec.setLong(object, index, value);
+				return;
+			}
+			if (primitiveSetter == null) throw notAccessible();
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		public void setInt(Object object, int value) {
+			if (codec != null) {
+				codec.setInt(object, index, value);
+				return;
+			}
+			if (primitiveSetter == null) throw notAccessible();
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		public void setBoolean(Object object, boolean value) {
+			if (codec != null) {
+				codec.setBoolean(object, index, value);
+				return;
+			}
+			if (primitiveSetter == null) throw notAccessible();
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		
+		public Object get(Object object) {
+			if (codec != null) return codec.get(object, index);
+			if (getter == null) throw notAccessible();
+			try {
+				return (Object)getter.invokeExact(object);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		public double getDouble(Object object) {
+			if (codec != null) return codec.getDouble(object, index);
+			if (primitiveGetter == null) throw notAccessible();
+			try {
+				return (double)primitiveGetter.invokeExact(object);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		public long getLong(Object object) {
+			if (codec != null) return codec.getLong(object, index);
+			if (primitiveGetter == null) throw notAccessible();
+			try {
+				return (long)primitiveGetter.invokeExact(object);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		public int getInt(Object object) {
+			if (codec != null) return codec.getInt(object, index);
+			if (primitiveGetter == null) throw notAccessible();
+			try {
+				return (int)primitiveGetter.invokeExact(object);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		public boolean getBoolean(Object object) {
+			if (codec != null) return codec.getBoolean(object, index);
+			if (primitiveGetter == null) throw notAccessible();
+			try {
+				return (boolean)primitiveGetter.invokeExact(object);
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+	}
+	
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+	
+	private static UnexpectedException unexpected(Throwable e) {
+		if (e instanceof UnexpectedException) return (UnexpectedException)e;
+		String exceptionName = e.getClass().getSimpleName();
+		logger.error("{} {}", exceptionName, e);
+		return new UnexpectedException(exceptionName, e);
 	}
 	
 	public static class ClassInfo {
-		private static Map<String, ClassInfo> map = new TreeMap<>();
+		private static final ClassValueCache<ClassInfo> cache = new ClassValueCache<>(ClassInfo::new);
 		
 		public static ClassInfo get(Class<?> clazz) {
-			String clazzName = clazz.getName();
-			if (map.containsKey(clazzName)) {
-				return map.get(clazzName);
-			} else {
-				ClassInfo classInfo = new ClassInfo(clazz);
-				map.put(clazzName, classInfo);
-				return classInfo;
-			}
+			return cache.get(clazz);
 		}
 		
 		public final Class<?>       clazz;
 		public final String         clazzName;
 		public final Constructor<?> construcor;
+		private final MethodHandle  factory; // null if clazz has no accessible default constructor
+		private final Codec<Object> codec;   // null if no codec is generated for clazz
 
 		public final FieldInfo[]    fieldInfos;
 		public final Set<String>    fieldNameSet;
 		
+		// open addressing table of jsonName to index of fieldInfos
+		// size of table is chosen to avoid collision if possible, so lookup is one probe and one equals
+		private final String[]      keyTable;
+		private final int[]         indexTable;
+		private final int           mask;
+		
 		private ClassInfo(Class<?> clazz) {
 			try {
 				this.clazz      = clazz;
 				this.clazzName  = clazz.getName();
 				
+				List<Field> fieldList = new ArrayList<>();
+				for(Field field: clazz.getDeclaredFields()) {
+					// Skip static field
+					if (Modifier.isStatic(field.getModifiers())) continue;
+					fieldList.add(field);
+				}
+				
+				{
+					@SuppressWarnings("unchecked")
+					Codec<Object> codec = ClassUtil.getCodec(clazz, Codec.SUFFIX, Codec.class);
+					// use codec only if index of codec is same as order of fieldList
+					if (codec != null && !isSameOrder(codec.names(), fieldList)) {
+						logger.warn("Field order of codec differs from reflection  {}", clazzName);
+						codec = null;
+					}
+					this.codec = codec;
+				}
+				
 				{
 					Constructor<?> construcor = null;
 					
@@ -148,195 +466,669 @@ public final class JSON {
 					}
 					
 					this.construcor = construcor;
+					
+					MethodHandle factory = null;
+					if (construcor != null && codec == null) {
+						try {
+							factory = lookup.unreflectConstructor(construcor).asType(MethodType.methodType(Object.class));
+						} catch (IllegalAccessException e) {
+							// Report error when instance is actually created.
+						}
+					}
+					this.factory = factory;
 				}
 				
 				{
-					List<Field> fieldList = new ArrayList<>();
-					for(Field field: clazz.getDeclaredFields()) {
-						// Skip static field
-						if (Modifier.isStatic(field.getModifiers())) continue;
-						fieldList.add(field);
-					}
 					this.fieldInfos = new FieldInfo[fieldList.size()];
 					for(int i = 0; i < fieldInfos.length; i++) {
-						fieldInfos[i] = new FieldInfo(fieldList.get(i));
+						fieldInfos[i] = new FieldInfo(fieldList.get(i), i, codec);
 					}
 				}
 				
 				this.fieldNameSet = Arrays.stream(fieldInfos).map(o -> o.jsonName).collect(Collectors.toSet());
+				
+				{
+					int size = tableSize(fieldInfos);
+					this.keyTable   = new String[size];
+					this.indexTable = new int[size];
+					this.mask       = size - 1;
+					for(int i = 0; i < fieldInfos.length; i++) {
+						String key = fieldInfos[i].jsonName;
+						int slot = hash(key) & mask;
+						for(;;) {
+							if (keyTable[slot] == null) {
+								keyTable[slot]   = key;
+								indexTable[slot] = i;
+								break;
+							}
+							// keep first field for duplicate name
+							if (keyTable[slot].equals(key)) break;
+							slot = (slot + 1) & mask;
+						}
+					}
+				}
 			} catch (SecurityException e) {
 				String exceptionName = e.getClass().getSimpleName();
 				logger.error("{} {}", exceptionName, e);
 				throw new UnexpectedException(exceptionName, e);
 			}
 		}
-
+		
+		private static boolean isSameOrder(String[] names, List<Field> fieldList) {
+			if (names.length != fieldList.size()) return false;
+			for(int i = 0; i < names.length; i++) {
+				if (!names[i].equals(fieldList.get(i).getName())) return false;
+			}
+			return true;
+		}
+		
+		private static final int MAX_TABLE_SIZE_FACTOR = 32;
+		private static int hash(String key) {
+			int h = key.hashCode();
+			return h ^ (h >>> 16);
+		}
+		private static int tableSize(FieldInfo[] fieldInfos) {
+			int minSize = Integer.highestOneBit(Math.max(1, fieldInfos.length * 2 - 1)) << 1;
+			int maxSize = minSize * MAX_TABLE_SIZE_FACTOR;
+			for(int size = minSize; size <= maxSize; size <<= 1) {
+				boolean[] used = new boolean[size];
+				boolean   perfect = true;
+				for(FieldInfo fieldInfo: fieldInfos) {
+					int slot = hash(fieldInfo.jsonName) & (size - 1);
+					if (used[slot]) {
+						perfect = false;
+						break;
+					}
+					used[slot] = true;
+				}
+				if (perfect) return size;
+			}
+			// no perfect size, use linear probing
+			return minSize;
+		}
+		
+		public Object newInstance() {
+			if (codec != null) return codec.newInstance();
+			// Sanity check
+			if (factory == null) {
+				logger.error("No accessible default constructor");
+				logger.error("  clazz {}", clazzName);
+				throw new UnexpectedException("No accessible default constructor");
+			}
+			try {
+				return (Object)factory.invokeExact();
+			} catch (Throwable e) {
+				throw unexpected(e);
+			}
+		}
+		
+		// returns index of fieldInfos or -1 if not found
+		public int indexOf(String jsonName) {
+			int slot = hash(jsonName) & mask;
+			for(;;) {
+				String key = keyTable[slot];
+				if (key == null) return -1;
+				if (key.equals(jsonName)) return indexTable[slot];
+				slot = (slot + 1) & mask;
+			}
+		}
 	}
 	
 	private static final LocalDate     NULL_LOCAL_DATE      = LocalDate.of(0, 1, 1);
 	private static final LocalTime     NULL_LOCAL_TIME      = LocalTime.of(0, 0, 0);
 	private static final LocalDateTime NULL_LOCAL_DATE_TIME = LocalDateTime.of(NULL_LOCAL_DATE, NULL_LOCAL_TIME);
+	
+	// Factory is created once. Json.createParser and Json.createGenerator look up provider at each call.
+	private static final JsonParserFactory    parserFactory    = Json.createParserFactory(null);
+	private static final JsonGeneratorFactory generatorFactory = Json.createGeneratorFactory(null);
+	
+	// Byte source is parsed without decoding to String. Encoding (UTF-8, UTF-16 or UTF-32) is detected by parser.
+	private static InputStream toInputStream(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+		}
+		
+		// direct or read only buffer -- read from duplicate not to change position of buffer
+		final ByteBuffer bb = buffer.duplicate();
+		return new InputStream() {
+			@Override
+			public int read() {
+				return bb.hasRemaining() ? (bb.get() & 0xFF) : -1;
+			}
+			@Override
+			public int read(byte[] b, int off, int len) {
+				if (len == 0) return 0;
+				if (!bb.hasRemaining()) return -1;
+				int count = Math.min(len, bb.remaining());
+				bb.get(b, off, count);
+				return count;
+			}
+			@Override
+			public int available() {
+				return bb.remaining();
+			}
+		};
+	}
 
 	public static <E> E unmarshal(Class<E> clazz, String jsonString) {
 		return unmarshal(clazz, new StringReader(jsonString));
 	}
 	public static <E> E unmarshal(Class<E> clazz, Reader reader) {
-		try (JsonReader jsonReader = Json.createReader(reader)) {
+		return unmarshal(clazz, parserFactory.createParser(reader));
+	}
+	public static <E> E unmarshal(Class<E> clazz, InputStream is) {
+		return unmarshal(clazz, parserFactory.createParser(is));
+	}
+	public static <E> E unmarshal(Class<E> clazz, byte[] jsonBytes) {
+		return unmarshal(clazz, new ByteArrayInputStream(jsonBytes));
+	}
+	public static <E> E unmarshal(Class<E> clazz, ByteBuffer jsonBytes) {
+		return unmarshal(clazz, toInputStream(jsonBytes));
+	}
+	private static <E> E unmarshal(Class<E> clazz, JsonParser jsonParser) {
+		try (JsonParser parser = jsonParser;
+			SchemaDrift.Report report = SchemaDrift.create(clazz.getName())) {
 			ClassInfo classInfo = ClassInfo.get(clazz);
 			
+			// Assume parser has only one object
+			Event event = parser.next();
+			if (event != Event.START_OBJECT) {
+				logger.error("Unexpected event  {}  {}", event, parser.getLocation());
+				throw new UnexpectedException("Unexpected event");
+			}
+			
 			// call default constructor of the class
 			@SuppressWarnings("unchecked")
-			E ret = (E)classInfo.construcor.newInstance();
+			E ret = (E)classInfo.newInstance();
 
-			// Assume jsonReader has only one object
-			JsonObject jsonObject = jsonReader.readObject();
-			
-			setValue(ret, jsonObject);
+			setValue(ret, classInfo, parser, report);
 			
 			return ret;
-		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
-			String exceptionName = e.getClass().getSimpleName();
-			logger.error("{} {}", exceptionName, e);
-			throw new UnexpectedException(exceptionName, e);
 		}
 	}
 	
 	public static <E> List<E> getList(Class<E> clazz, String jsonString) {
-		ClassInfo classInfo = ClassInfo.get(clazz);
-		try (JsonReader reader = Json.createReader(new StringReader(jsonString))) {
-			// Assume result is array
-			JsonArray jsonArray = reader.readArray();
-			
-			int jsonArraySize = jsonArray.size();
-			List<E> ret = new ArrayList<>(jsonArraySize);
-			
-			for(int i = 0; i < jsonArraySize; i++) {
-				JsonValue jsonValue = jsonArray.get(i);
-				ValueType valueType = jsonValue.getValueType();
-				switch (valueType) {
-				case OBJECT:
+		return getList(clazz, parserFactory.createParser(new StringReader(jsonString)));
+	}
+	public static <E> List<E> getList(Class<E> clazz, InputStream is) {
+		return getList(clazz, parserFactory.createParser(is));
+	}
+	public static <E> List<E> getList(Class<E> clazz, byte[] jsonBytes) {
+		return getList(clazz, new ByteArrayInputStream(jsonBytes));
+	}
+	public static <E> List<E> getList(Class<E> clazz, ByteBuffer jsonBytes) {
+		return getList(clazz, toInputStream(jsonBytes));
+	}
+	private static <E> List<E> getList(Class<E> clazz, JsonParser parser) {
+		List<E> ret = new ArrayList<>();
+		try (ArrayIterator<E> iterator = new ArrayIterator<>(clazz, parser)) {
+			while(iterator.hasNext()) {
+				ret.add(iterator.next());
+			}
+		}
+		return ret;
+	}
+
+	
+	//
+	// Lazy read of json array -- bind each element when its object is closed. Memory usage doesn't depend on size of array.
+	// Reader is closed at end of array or by close()
+	//
+	private static class ArrayIterator<E> implements Iterator<E>, Closeable {
+		private final ClassInfo          classInfo;
+		private final SchemaDrift.Report report;
+		private JsonParser               parser;
+		private E                        next;
+		
+		ArrayIterator(Class<E> clazz, JsonParser parser) {
+			this.classInfo = ClassInfo.get(clazz);
+			this.report    = SchemaDrift.create(clazz.getName());
+			this.parser    = parser;
+			next      = null;
+			
+			try {
+				// Assume result is array
+				if (!parser.hasNext()) {
+					close();
+					return;
+				}
+				Event event = parser.next();
+				if (event != Event.START_ARRAY) {
+					logger.error("Unexpected event  {}", event);
+					throw new UnexpectedException("Unexpected event");
+				}
+			} catch (UnexpectedException | JsonException e) {
+				close();
+				throw e;
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if (next != null) return true;
+			if (parser == null) return false;
+			
+			try {
+				next = read();
+			} catch (UnexpectedException | JsonException e) {
+				close();
+				throw e;
+			}
+			if (next == null) close();
+			return next != null;
+		}
+		@Override
+		public E next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			E ret = next;
+			next = null;
+			return ret;
+		}
+		@Override
+		public void close() {
+			if (parser == null) return;
+			try {
+				parser.close();
+			} finally {
+				parser = null;
+				report.close();
+			}
+		}
+		
+		// returns null at end of array
+		private E read() {
+			for(;;) {
+				Event event = parser.next();
+				switch(event) {
+				case START_OBJECT:
 				{
 					@SuppressWarnings("unchecked")
-					E e = (E)classInfo.construcor.newInstance();
+					E e = (E)classInfo.newInstance();
 					
-					JsonObject jsonObject = jsonValue.asJsonObject();
-
-					setValue(e, jsonObject);
-					ret.add(e);
+					setValue(e, classInfo, parser, report);
+					return e;
 				}
-					break;
-				case NULL:
+				case VALUE_NULL:
 					// Skip NULL
 					break;
+				case END_ARRAY:
+					return null;
 				default:
-					logger.info("Unexpected valueType  {}  {}  {}", i, valueType, jsonValue);
-					throw new UnexpectedException("Unexpected valueType");
+					logger.info("Unexpected event  {}  {}", event, parser.getLocation());
+					throw new UnexpectedException("Unexpected event");
 				}
 			}
+		}
+	}
+	
+	public static <E> Iterator<E> iterator(Class<E> clazz, Reader reader) {
+		return new ArrayIterator<>(clazz, parserFactory.createParser(reader));
+	}
+	public static <E> Iterator<E> iterator(Class<E> clazz, InputStream is) {
+		return new ArrayIterator<>(clazz, parserFactory.createParser(is));
+	}
+	// Returned stream need to be closed to release underlying reader. Use try-with-resources.
+	public static <E> Stream<E> stream(Class<E> clazz, Reader reader) {
+		return stream(new ArrayIterator<>(clazz, parserFactory.createParser(reader)));
+	}
+	public static <E> Stream<E> stream(Class<E> clazz, InputStream is) {
+		return stream(new ArrayIterator<>(clazz, parserFactory.createParser(is)));
+	}
+	private static <E> Stream<E> stream(ArrayIterator<E> iterator) {
+		Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+	}
+	
+	//
+	// JSON Lines -- one json object per line. Blank line is skipped. File is read and written in UTF-8.
+	//
+	// bind one json object in reader. reader contains exactly one line.
+	private static Object readLine(ClassInfo classInfo, Reader reader, SchemaDrift.Report report) {
+		try (JsonParser parser = parserFactory.createParser(reader)) {
+			Event event = parser.next();
+			if (event != Event.START_OBJECT) {
+				logger.error("Unexpected event  {}  {}", event, parser.getLocation());
+				throw new UnexpectedException("Unexpected event");
+			}
 			
+			Object ret = classInfo.newInstance();
+			setValue(ret, classInfo, parser, report);
 			return ret;
-		} catch (IllegalAccessException | InstantiationException | IllegalArgumentException | InvocationTargetException | SecurityException | NoSuchMethodException e) {
+		}
+	}
+	private static boolean isBlank(CharSequence line) {
+		for(int i = 0; i < line.length(); i++) {
+			if (!Character.isWhitespace(line.charAt(i))) return false;
+		}
+		return true;
+	}
+	
+	// Reader is closed at end of stream or by close()
+	private static class LineIterator<E> implements Iterator<E>, Closeable {
+		private final ClassInfo          classInfo;
+		private final SchemaDrift.Report report;
+		private BufferedReader           br;
+		private E                        next;
+		
+		LineIterator(Class<E> clazz, Reader reader) {
+			classInfo = ClassInfo.get(clazz);
+			report    = SchemaDrift.create(clazz.getName());
+			br        = (reader instanceof BufferedReader) ? (BufferedReader)reader : new BufferedReader(reader, BUFFER_SIZE);
+			next      = null;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if (next != null) return true;
+			if (br == null) return false;
+			
+			try {
+				for(;;) {
+					String line = br.readLine();
+					if (line == null) break;
+					if (isBlank(line)) continue;
+					
+					@SuppressWarnings("unchecked")
+					E e = (E)readLine(classInfo, new StringReader(line), report);
+					next = e;
+					break;
+				}
+			} catch (IOException e) {
+				close();
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			} catch (UnexpectedException | JsonException e) {
+				close();
+				throw e;
+			}
+			if (next == null) close();
+			return next != null;
+		}
+		@Override
+		public E next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			E ret = next;
+			next = null;
+			return ret;
+		}
+		@Override
+		public void close() {
+			if (br == null) return;
+			try {
+				br.close();
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			} finally {
+				br = null;
+				report.close();
+			}
+		}
+	}
+	
+	// Returned stream need to be closed to release underlying reader. Use try-with-resources.
+	public static <E> Stream<E> readLines(Class<E> clazz, Reader reader) {
+		LineIterator<E> iterator = new LineIterator<>(clazz, reader);
+		Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+	}
+	public static <E> Stream<E> readLines(Class<E> clazz, Path path) {
+		try {
+			return readLines(clazz, Files.newBufferedReader(path, StandardCharsets.UTF_8));
+		} catch (IOException e) {
 			String exceptionName = e.getClass().getSimpleName();
 			logger.error("{} {}", exceptionName, e);
 			throw new UnexpectedException(exceptionName, e);
 		}
 	}
-
+	
+	//
+	// Parallel read of JSON Lines -- memory map file and split at newline. Each chunk is parsed in ForkJoinPool.
+	// Newline never appears inside of json value, so any newline is line boundary.
+	//
+	private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+	
+	private static long[] splitLines(FileChannel fc, int parallelism) throws IOException {
+		long size      = fc.size();
+		long chunkSize = Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4));
 		
-	private static void setValue(Object object, JsonObject jsonObject) throws IllegalAccessException, IllegalArgumentException, InstantiationException, InvocationTargetException, NoSuchMethodException, SecurityException {
-		ClassInfo classInfo = ClassInfo.get(object.getClass());
+		List<Long> list = new ArrayList<>();
+		list.add(0L);
 		
-		// Sanity check
-		for(FieldInfo fieldInfo: classInfo.fieldInfos) {
-			if (fieldInfo.ignoreField)                      continue;
-			if (jsonObject.containsKey(fieldInfo.jsonName)) continue;
-			// jsonObject doesn't contains field named fieldInfo.jsonName
-			logger.warn("Missing json field  {}  {}  {}", classInfo.clazzName, fieldInfo.jsonName, jsonObject.keySet());
+		ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+		long pos = 0;
+		while(pos < size) {
+			long next = pos + chunkSize;
+			if (size <= next) {
+				next = size;
+			} else {
+				// move next to after newline
+				found:
+				for(;;) {
+					buffer.clear();
+					int count = fc.read(buffer, next);
+					if (count <= 0) {
+						next = size;
+						break;
+					}
+					for(int i = 0; i < count; i++) {
+						if (buffer.get(i) == '\n') {
+							next += i + 1;
+							break found;
+						}
+					}
+					next += count;
+				}
+			}
+			list.add(next);
+			pos = next;
 		}
-		for(String jsonKey: jsonObject.keySet()) {
-			if (classInfo.fieldNameSet.contains(jsonKey)) continue;
-			// this class doesn't contains field named jsonKey
-			logger.warn("Unknown json field  {}  {}  {}", classInfo.clazzName, jsonKey, classInfo.fieldNameSet);
+		
+		long[] ret = new long[list.size()];
+		for(int i = 0; i < ret.length; i++) {
+			ret[i] = list.get(i);
 		}
+		return ret;
+	}
+	
+	private static <E> List<E> readLineChunk(ClassInfo classInfo, FileChannel fc, long start, long end, SchemaDrift.Report report) {
+		try {
+			MappedByteBuffer mbb = fc.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+			CharBuffer       cb  = StandardCharsets.UTF_8.decode(mbb);
+			char[]           array = cb.array();
+			int              limit = cb.arrayOffset() + cb.limit();
+			
+			List<E> ret = new ArrayList<>();
+			int lineStart = cb.arrayOffset() + cb.position();
+			while(lineStart < limit) {
+				int lineEnd = lineStart;
+				while(lineEnd < limit && array[lineEnd] != '\n') lineEnd++;
+				
+				CharBuffer line = CharBuffer.wrap(array, lineStart, lineEnd - lineStart);
+				if (!isBlank(line)) {
+					@SuppressWarnings("unchecked")
+					E e = (E)readLine(classInfo, new CharArrayReader(array, lineStart, lineEnd - lineStart), report);
+					ret.add(e);
+				}
+				lineStart = lineEnd + 1;
+			}
+			return ret;
+		} catch (IOException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.error("{} {}", exceptionName, e);
+			throw new UnexpectedException(exceptionName, e);
+		}
+	}
+	
+	// Returns parallel stream in file order. Chunks are parsed on demand in common pool.
+	// Returned stream need to be closed to release underlying file. Use try-with-resources.
+	public static <E> Stream<E> parallelReadLines(Class<E> clazz, Path path) {
+		try {
+			ClassInfo          classInfo = ClassInfo.get(clazz);
+			SchemaDrift.Report report    = SchemaDrift.create(clazz.getName());
+			FileChannel        fc        = FileChannel.open(path, StandardOpenOption.READ);
+			long[]      offsets;
+			try {
+				offsets = splitLines(fc, ForkJoinPool.getCommonPoolParallelism());
+			} catch (IOException e) {
+				fc.close();
+				throw e;
+			}
+			
+			return IntStream.range(1, offsets.length).parallel()
+				.mapToObj(i -> JSON.<E>readLineChunk(classInfo, fc, offsets[i - 1], offsets[i], report))
+				.flatMap(List::stream)
+				.onClose(() -> {
+					report.close();
+					try {
+						fc.close();
+					} catch (IOException e) {
+						String exceptionName = e.getClass().getSimpleName();
+						logger.error("{} {}", exceptionName, e);
+						throw new UnexpectedException(exceptionName, e);
+					}
+				});
+		} catch (IOException e) {
+			String exceptionName = e.getClass().getSimpleName();
+			logger.error("{} {}", exceptionName, e);
+			throw new UnexpectedException(exceptionName, e);
+		}
+	}
 		
-		for(FieldInfo fieldInfo: classInfo.fieldInfos) {
-			// Skip field if name is not exist in jsonObject
-			if (!jsonObject.containsKey(fieldInfo.jsonName))continue;
+	//
+	// Bind json object to fields of object directly from parser event. Current event of parser is START_OBJECT.
+	// No intermediate JsonObject is built. Field is found by ClassInfo.indexOf and appeared field is tracked in bit set.
+	// Missing field, unknown field and default value are counted in report.
+	//
+	private static void setValue(Object object, ClassInfo classInfo, JsonParser parser, SchemaDrift.Report report) {
+		FieldInfo[] fieldInfos = classInfo.fieldInfos;
+		long[]      seen       = new long[(fieldInfos.length + 63) >>> 6];
+		
+		for(;;) {
+			Event event = parser.next();
+			if (event == Event.END_OBJECT) break;
+			if (event != Event.KEY_NAME) {
+				logger.error("Unexpected event  {}  {}", event, parser.getLocation());
+				throw new UnexpectedException("Unexpected event");
+			}
+			
+			String jsonKey = parser.getString();
+			int    index   = classInfo.indexOf(jsonKey);
 			
-			ValueType valueType = jsonObject.get(fieldInfo.jsonName).getValueType();
+			event = parser.next();
+			if (index < 0) {
+				// this class doesn't contains field named jsonKey
+				report.unknown(classInfo.clazzName, jsonKey);
+				skipValue(parser, event);
+				continue;
+			}
+			seen[index >>> 6] |= 1L << index;
+			
+			FieldInfo fieldInfo = fieldInfos[index];
 			
-//			logger.debug("parse {} {} {}", fieldInfo.name, valueType.toString(), fieldInfo.type);
+//			logger.debug("parse {} {} {}", fieldInfo.name, event.toString(), fieldInfo.type);
 			
-			switch(valueType) {
-			case NUMBER:
-				setValue(object, fieldInfo, jsonObject.getJsonNumber(fieldInfo.jsonName));
+			switch(event) {
+			case VALUE_NUMBER:
+				setNumber(object, fieldInfo, parser);
 				break;
-			case STRING:
-				setValue(object, fieldInfo, jsonObject.getJsonString(fieldInfo.jsonName));
+			case VALUE_STRING:
+				setValue(object, fieldInfo, parser.getString());
 				break;
-			case TRUE:
+			case VALUE_TRUE:
 				setValue(object, fieldInfo, true);
 				break;
-			case FALSE:
+			case VALUE_FALSE:
 				setValue(object, fieldInfo, false);
 				break;
-			case NULL:
+			case VALUE_NULL:
 				setValue(object, fieldInfo);
 				break;
-			case OBJECT:
-				setValue(object, fieldInfo, jsonObject.getJsonObject(fieldInfo.jsonName));
+			case START_OBJECT:
+				setObject(object, fieldInfo, parser, report);
 				break;
-			case ARRAY:
-				setValue(object, fieldInfo, jsonObject.getJsonArray(fieldInfo.jsonName));
+			case START_ARRAY:
+				setArray(object, fieldInfo, parser, report);
 				break;
 			default:
-				logger.error("Unknown valueType {} {}", valueType.toString(), fieldInfo.toString());
-				throw new UnexpectedException("Unknown valueType");
+				logger.error("Unknown event {} {}", event.toString(), fieldInfo.toString());
+				throw new UnexpectedException("Unknown event");
 			}
 		}
 
-		// Assign default value for LocalDate and LocalDateTime, if field value is null and not appeared in jsonObject
-		for(FieldInfo fieldInfo: classInfo.fieldInfos) {
-			// Skip if name is exist in jsonObject
-			if (jsonObject.containsKey(fieldInfo.jsonName)) continue;
+		// Assign default value for LocalDate and LocalDateTime, if field value is null and not appeared in json object
+		for(int i = 0; i < fieldInfos.length; i++) {
+			// Skip if name is appeared in json object
+			if ((seen[i >>> 6] & (1L << i)) != 0) continue;
+			
+			FieldInfo fieldInfo = fieldInfos[i];
+			if (!fieldInfo.ignoreField) {
+				// json object doesn't contains field named fieldInfo.jsonName
+				report.count(fieldInfo.missingKey);
+			}
+			// Primitive field is never null
+			if (fieldInfo.clazz.isPrimitive()) continue;
 
-			Object objectField = fieldInfo.field.get(object);
+			Object objectField = fieldInfo.get(object);
 			// If field is null, assign default value
 			if (objectField == null) {
 				if (!fieldInfo.ignoreField) {
-					logger.warn("Assign default value  {} {} {}", classInfo.clazzName, fieldInfo.name, fieldInfo.type);
+					report.count(fieldInfo.defaultKey);
 				}
 				setValue(object, fieldInfo);
 			}
 		}
 	}
 	
+	// skip value of current event. If event is START_OBJECT or START_ARRAY, skip until matching end.
+	private static void skipValue(JsonParser parser, Event event) {
+		if (event != Event.START_OBJECT && event != Event.START_ARRAY) return;
+		
+		int depth = 1;
+		while(0 < depth) {
+			switch(parser.next()) {
+			case START_OBJECT:
+			case START_ARRAY:
+				depth++;
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				depth--;
+				break;
+			default:
+				break;
+			}
+		}
+	}
+	
 	//
-	// JsonNumber
+	// number
 	//
-	private static void setValue(Object object, FieldInfo fieldInfo, JsonNumber jsonNumber) throws IllegalAccessException {
+	private static void setNumber(Object object, FieldInfo fieldInfo, JsonParser parser) {
 		switch(fieldInfo.type) {
 		case "double":
-			fieldInfo.field.set(object, jsonNumber.doubleValue());
+			fieldInfo.setDouble(object, Double.parseDouble(parser.getString()));
 			break;
 		case "long":
-			fieldInfo.field.set(object, jsonNumber.longValue());
+			fieldInfo.setLong(object, parser.getLong());
 			break;
 		case "int":
-			fieldInfo.field.set(object, jsonNumber.intValue());
+			fieldInfo.setInt(object, parser.getInt());
 			break;
 		case "java.math.BigDecimal":
-			fieldInfo.field.set(object, jsonNumber.bigDecimalValue());
+			fieldInfo.set(object, parser.getBigDecimal());
 			break;
 		case "java.lang.String":
 			// To handle irregular case in Symbols, add this code. Value of iexId in Symbols can be number or String.
-			fieldInfo.field.set(object, jsonNumber.toString());
+			fieldInfo.set(object, fieldInfo.intern(parser.getBigDecimal().toString()));
 			break;
 		case "java.time.LocalDateTime":
-			fieldInfo.field.set(object, LocalDateTime.ofInstant(Instant.ofEpochMilli(jsonNumber.longValue()), ZoneOffset.UTC));
+			fieldInfo.set(object, LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLong()), ZoneOffset.UTC));
 			break;
 		case "java.time.LocalDate":
-			fieldInfo.field.set(object, LocalDate.ofInstant(Instant.ofEpochMilli(jsonNumber.longValue()), ZoneOffset.UTC));
+			fieldInfo.set(object, LocalDate.ofInstant(Instant.ofEpochMilli(parser.getLong()), ZoneOffset.UTC));
 			break;
 		default:
 			logger.error("Unexptected type {}", fieldInfo.field.toString());
@@ -345,44 +1137,43 @@ public final class JSON {
 	}
 
 	//
-	// JsonString
+	// String
 	//
-	private static void setValue(Object object, FieldInfo fieldInfo, JsonString jsonString) throws IllegalAccessException {
+	private static void setValue(Object object, FieldInfo fieldInfo, String value) {
 		switch(fieldInfo.type) {
 		case "java.lang.String":
-			fieldInfo.field.set(object, jsonString.getString());
+			fieldInfo.set(object, fieldInfo.intern(value));
 			break;
 		case "double":
-			fieldInfo.field.set(object, Double.valueOf((jsonString.getString().length() == 0) ? "0" : jsonString.getString()));
+			fieldInfo.setDouble(object, (value.length() == 0) ? 0 : Double.parseDouble(value));
 			break;
 		case "long":
-			fieldInfo.field.set(object, Long.valueOf((jsonString.getString().length() == 0) ? "0" : jsonString.getString()));
+			fieldInfo.setLong(object, (value.length() == 0) ? 0 : Long.parseLong(value));
 			break;
 		case "int":
-			fieldInfo.field.set(object, Integer.valueOf((jsonString.getString().length() == 0) ? "0" : jsonString.getString()));
+			fieldInfo.setInt(object, (value.length() == 0) ? 0 : Integer.parseInt(value));
 			break;
 		case "java.time.LocalDate":
 			if (fieldInfo.dateTimeFormatter != null) {
-				fieldInfo.field.set(object, LocalDate.parse(jsonString.getString(), fieldInfo.dateTimeFormatter));
+				fieldInfo.set(object, LocalDate.parse(value, fieldInfo.dateTimeFormatter));
 			} else {
-				fieldInfo.field.set(object, LocalDate.parse(jsonString.getString()));
+				fieldInfo.set(object, LocalDate.parse(value));
 			}
 			break;
 		case "java.time.LocalDateTime":
 			if (fieldInfo.dateTimeFormatter != null) {
-				fieldInfo.field.set(object, LocalDateTime.parse(jsonString.getString(), fieldInfo.dateTimeFormatter));
+				fieldInfo.set(object, LocalDateTime.parse(value, fieldInfo.dateTimeFormatter));
 			} else {
-				fieldInfo.field.set(object, LocalDateTime.parse(jsonString.getString()));
+				fieldInfo.set(object, LocalDateTime.parse(value));
 			}
 			break;
 		case "java.math.BigDecimal":
-			fieldInfo.field.set(object, new BigDecimal(jsonString.getString()));
+			fieldInfo.set(object, new BigDecimal(value));
 			break;
 		default:
 			if (fieldInfo.enumMap != null) {
-				String value = jsonString.getString();
 				if (fieldInfo.enumMap.containsKey(value)) {
-					fieldInfo.field.set(object, fieldInfo.enumMap.get(value));
+					fieldInfo.set(object, fieldInfo.enumMap.get(value));
 				} else {
 					logger.error("Unknow enum value  {}  {}", fieldInfo.clazz.getName(), value);
 					throw new UnexpectedException("Unknow enum value");
@@ -397,10 +1188,10 @@ public final class JSON {
 	//
 	// boolean
 	//
-	private static void setValue(Object object, FieldInfo fieldInfo, boolean value) throws IllegalAccessException {
+	private static void setValue(Object object, FieldInfo fieldInfo, boolean value) {
 		switch(fieldInfo.type) {
 		case "boolean":
-			fieldInfo.field.set(object, value);
+			fieldInfo.setBoolean(object, value);
 			break;
 		default:
 			logger.error("Unexptected type {}", fieldInfo.field.toString());
@@ -411,25 +1202,25 @@ public final class JSON {
 	//
 	// default value
 	//
-	private static void setValue(Object object, FieldInfo fieldInfo) throws IllegalAccessException {
+	private static void setValue(Object object, FieldInfo fieldInfo) {
 		switch(fieldInfo.type) {
 		case "double":
-			fieldInfo.field.set(object, 0);
+			fieldInfo.setDouble(object, 0);
 			break;
 		case "long":
-			fieldInfo.field.set(object, 0);
+			fieldInfo.setLong(object, 0);
 			break;
 		case "int":
-			fieldInfo.field.set(object, 0);
+			fieldInfo.setInt(object, 0);
 			break;
 		case "java.time.LocalDateTime":
-			fieldInfo.field.set(object, NULL_LOCAL_DATE_TIME);
+			fieldInfo.set(object, NULL_LOCAL_DATE_TIME);
 			break;
 		case "java.time.LocalDate":
-			fieldInfo.field.set(object, NULL_LOCAL_DATE);
+			fieldInfo.set(object, NULL_LOCAL_DATE);
 			break;
 		case "java.lang.String":
-			fieldInfo.field.set(object, "");
+			fieldInfo.set(object, "");
 			break;
 		default:
 			if (fieldInfo.field.getType().isPrimitive()) {
@@ -438,92 +1229,78 @@ public final class JSON {
 				logger.error("  type  {}", fieldInfo.type);
 				throw new UnexpectedException("Unexpected field type");
 			} else {
-				fieldInfo.field.set(object, null);
+				fieldInfo.set(object, null);
 			}
 			break;
 		}
 	}
 	
 	//
-	// JsonObject
+	// object -- current event of parser is START_OBJECT
 	//
-	private static void setValue(Object object, FieldInfo fieldInfo, JsonObject jsonObject) throws IllegalArgumentException, IllegalAccessException, InstantiationException, InvocationTargetException, NoSuchMethodException, SecurityException {
-		ClassInfo classInfo = ClassInfo.get(fieldInfo.clazz);
-		
-		if (classInfo.clazzName.equals("java.util.Map")) {
-			GenericInfo genericInfo = new GenericInfo(fieldInfo.field);
-			if (genericInfo.classArguments.length != 2) {
-				logger.error("Unexptected genericInfo.classArguments.length {}", genericInfo.classArguments.length);
-				throw new UnexpectedException("Unexptected genericInfo.classArguments.length");
-			}
-			Class<?> mapKeyClass   = genericInfo.classArguments[0];
-			Class<?> mapValueClass = genericInfo.classArguments[1];
-
-			String mapKeyClassName   = mapKeyClass.getTypeName();
-			String mapValueClassName = mapValueClass.getTypeName();
-
-			if (!mapKeyClassName.equals("java.lang.String")) {
-				logger.error("Unexptected keyTypeName {}", mapKeyClassName);
-				throw new UnexpectedException("Unexptected keyTypeName");
-			}
+	private static void setObject(Object object, FieldInfo fieldInfo, JsonParser parser, SchemaDrift.Report report) {
+		if (fieldInfo.isMap) {
+			fieldInfo.checkMap();
+			Class<?> mapValueClass     = fieldInfo.mapValueClass;
+			String   mapValueClassName = mapValueClass.getTypeName();
 			
 			switch(mapValueClassName) {
 			case "java.lang.Long":
 			{
 				Map<String, Long> map = new TreeMap<>();
 				
-				for(String childKey: jsonObject.keySet()) {
-					JsonValue childValue = jsonObject.get(childKey);
-					ValueType childValueType = childValue.getValueType();
+				for(;;) {
+					Event event = parser.next();
+					if (event == Event.END_OBJECT) break;
+					String childKey   = parser.getString();
+					Event  childEvent = parser.next();
 					
-					switch(childValueType) {
-					case STRING:
+					switch(childEvent) {
+					case VALUE_STRING:
 					{
-						JsonString jsonStringtValue = jsonObject.getJsonString(childKey);
-
-						Long value = Long.parseLong(jsonStringtValue.getString());
+						Long value = Long.parseLong(parser.getString());
 						
 						map.put(childKey, value);
 					}
 						break;
 					default:
-						logger.error("Unexptected childValueType {}", childValueType);
-						logger.error(" {}", classInfo.clazz.getTypeName());
+						logger.error("Unexptected childValueType {}", childEvent);
+						logger.error(" {}", fieldInfo.clazz.getTypeName());
 						logger.error(" {}", fieldInfo.field.toString());
 						throw new UnexpectedException("Unexptected childValueType");
 					}
 				}
 				
-				fieldInfo.field.set(object, map);
+				fieldInfo.set(object, map);
 			}
 				break;
 			case "java.lang.String":
 			{
 				Map<String, String> map = new TreeMap<>();
 				
-				for(String childKey: jsonObject.keySet()) {
-					JsonValue childValue = jsonObject.get(childKey);
-					ValueType childValueType = childValue.getValueType();
+				for(;;) {
+					Event event = parser.next();
+					if (event == Event.END_OBJECT) break;
+					String childKey   = parser.getString();
+					Event  childEvent = parser.next();
 					
-					switch(childValueType) {
-					case STRING:
+					switch(childEvent) {
+					case VALUE_STRING:
 					{
-						JsonString jsonStringtValue = jsonObject.getJsonString(childKey);
-
-						String value = jsonStringtValue.getString();
+						String value = fieldInfo.intern(parser.getString());
 						
 						map.put(childKey, value);
 					}
 						break;
 					default:
-						logger.error("Unexptected childValueType {}", childValueType);
-						logger.error(" {}", classInfo.clazz.getTypeName());
+						logger.error("Unexptected childValueType {}", childEvent);
+						logger.error(" {}", fieldInfo.clazz.getTypeName());
 						logger.error(" {}", fieldInfo.field.toString());
 						throw new UnexpectedException("Unexptected childValueType");
 					}
 				}
 				
-				fieldInfo.field.set(object, map);
+				fieldInfo.set(object, map);
 			}
 				break;
 			default:
@@ -533,111 +1310,113 @@ public final class JSON {
 					throw new UnexpectedException("Unexptected mapValueClass");
 				} else {
 					Map<String, Object> map = new TreeMap<>();
+					ClassInfo valueClassInfo = fieldInfo.nestedClassInfo();
 					
-					for(String childKey: jsonObject.keySet()) {
-						JsonValue childValue = jsonObject.get(childKey);
-						ValueType childValueType = childValue.getValueType();
+					for(;;) {
+						Event event = parser.next();
+						if (event == Event.END_OBJECT) break;
+						String childKey   = parser.getString();
+						Event  childEvent = parser.next();
 						
-						switch(childValueType) {
-						case OBJECT:
+						switch(childEvent) {
+						case START_OBJECT:
 						{
-							JsonObject jsonObjectValue = jsonObject.getJsonObject(childKey);
-							
-							ClassInfo valueClassInfo = ClassInfo.get(mapValueClass);
-							Object value = valueClassInfo.construcor.newInstance();
+							Object value = valueClassInfo.newInstance();
 							
-							setValue(value, jsonObjectValue);
+							setValue(value, valueClassInfo, parser, report);
 
 							map.put(childKey, value);
 						}
 							break;
 						default:
-							logger.error("Unexptected childValueType {}", childValueType);
-							logger.error(" {}", classInfo.clazz.getTypeName());
+							logger.error("Unexptected childValueType {}", childEvent);
+							logger.error(" {}", fieldInfo.clazz.getTypeName());
 							logger.error(" {}", fieldInfo.field.toString());
 							throw new UnexpectedException("Unexptected childValueType");
 						}
 					}
 					
-					fieldInfo.field.set(object, map);
+					fieldInfo.set(object, map);
 				}
 				break;
 			}
 
 		} else {
-			Object fieldObject = classInfo.construcor.newInstance();
-			setValue(fieldObject, jsonObject);
+			ClassInfo classInfo   = fieldInfo.nestedClassInfo();
+			Object    fieldObject = classInfo.newInstance();
+			setValue(fieldObject, classInfo, parser, report);
 			
-			fieldInfo.field.set(object, fieldObject);
+			fieldInfo.set(object, fieldObject);
 		}
 	}
 
 	//
-	// JsonArray
+	// array -- current event of parser is START_ARRAY
 	//
-	private static void setValue(Object object, FieldInfo fieldInfo, JsonArray jsonArray) throws IllegalArgumentException, IllegalAccessException, InstantiationException, InvocationTargetException, NoSuchMethodException, SecurityException {
+	private static void setArray(Object object, FieldInfo fieldInfo, JsonParser parser, SchemaDrift.Report report) {
 		if (!fieldInfo.isArray) {
 			logger.error("Field is not array  {}", fieldInfo.field.toString());
 			throw new UnexpectedException("Field is not array");
 		}
 		
-		Class<?> componentType = fieldInfo.field.getType().getComponentType();
+		Class<?> componentType = fieldInfo.componentType;
 		String componentTypeName = componentType.getName();
 		switch(componentTypeName) {
 		case "java.lang.String":
 		{
 			// array of String
-			int jsonArraySize = jsonArray.size();
-			String[] array = new String[jsonArray.size()];
+			List<String> list = new ArrayList<>();
 			
-			for(int i = 0; i < jsonArraySize; i++) {
-				JsonValue jsonValue = jsonArray.get(i);
+			for(;;) {
+				Event event = parser.next();
+				if (event == Event.END_ARRAY) break;
 				
-				switch(jsonValue.getValueType()) {
-				case STRING:
-					array[i] = jsonArray.getString(i);
+				switch(event) {
+				case VALUE_STRING:
+					list.add(fieldInfo.intern(parser.getString()));
 					break;
 				default:
-					logger.error("Unexpected json array element type {} {}", jsonValue.getValueType().toString(), fieldInfo.field.toString());
+					logger.error("Unexpected json array element type {} {}", event.toString(), fieldInfo.field.toString());
 					throw new UnexpectedException("Unexpected json array element type");
 				}
 			}
-			fieldInfo.field.set(object, array);
+			fieldInfo.set(object, list.toArray(new String[list.size()]));
 		}
 			break;
 		default:
 		{
-			int jsonArraySize = jsonArray.size();
+			List<Object> list = new ArrayList<>();
 			
-			// special case of null array
-			if (jsonArraySize == 1) {
-				JsonValue jsonValue = jsonArray.get(0);
-				if (jsonValue.getValueType() == JsonValue.ValueType.NULL) {
-					fieldInfo.field.set(object, null);
-					return;
-				}
-			}
+			ClassInfo classInfo = fieldInfo.nestedClassInfo();
 			
-			Object[] array = (Object[])Array.newInstance(componentType, jsonArraySize);
-
-			ClassInfo classInfo = ClassInfo.get(componentType);
-
-			for(int i = 0; i < jsonArraySize; i++) {
-				JsonValue jsonValue = jsonArray.get(i);
+			for(;;) {
+				Event event = parser.next();
+				if (event == Event.END_ARRAY) break;
 				
-				switch(jsonValue.getValueType()) {
-				case OBJECT:
+				switch(event) {
+				case START_OBJECT:
 				{
-					array[i] = classInfo.construcor.newInstance();
-					setValue(array[i], jsonValue.asJsonObject());
+					Object element = classInfo.newInstance();
+					setValue(element, classInfo, parser, report);
+					list.add(element);
 				}
 					break;
+				case VALUE_NULL:
+					// special case of null array
+					if (list.isEmpty() && parser.next() == Event.END_ARRAY) {
+						fieldInfo.set(object, null);
+						return;
+					}
+					logger.error("Unexpected json array element null {}", classInfo.clazzName);
+					throw new UnexpectedException("Unexpected json array element null");
 				default:
-					logger.error("Unexpected json array element type {} {}", jsonValue.getValueType().toString(), classInfo.clazzName);
+					logger.error("Unexpected json array element type {} {}", event.toString(), classInfo.clazzName);
 					throw new UnexpectedException("Unexpected json array element type");
 				}
 			}
-			fieldInfo.field.set(object, array);
+			
+			Object[] array = (Object[])Array.newInstance(componentType, list.size());
+			fieldInfo.set(object, list.toArray(array));
 		}
 			break;
 		}
@@ -647,7 +1426,7 @@ public final class JSON {
 	//
 	// toJSONString
 	//
-	private static void toJSONStringArray(JsonGenerator gen, Object[] array, String name) throws IllegalArgumentException, IllegalAccessException {
+	private static void toJSONStringArray(JsonGenerator gen, Object[] array, String name) {
 		if (name == null) {
 			gen.writeStartArray();
 		} else {
@@ -664,7 +1443,7 @@ public final class JSON {
 		
 		gen.writeEnd();
 	}
-	private static void toJSONStringObject(JsonGenerator gen, Object o, String name) throws IllegalArgumentException, IllegalAccessException {
+	private static void toJSONStringObject(JsonGenerator gen, Object o, String name) {
 		if (name == null) {
 			gen.writeStartObject();
 		} else {
@@ -678,25 +1457,29 @@ public final class JSON {
 			if (fieldInfo.ignoreField) continue;
 			
 			String fieldName  = fieldInfo.jsonName != null ? fieldInfo.jsonName : fieldInfo.name;
-			Object fieldValue = fieldInfo.field.get(o);
 			
-			if (fieldInfo.clazz.equals(Map.class)) {
-				GenericInfo genericInfo = new GenericInfo(fieldInfo.field);
-				if (genericInfo.classArguments.length != 2) {
-					logger.error("Unexptected genericInfo.classArguments.length {}", genericInfo.classArguments.length);
-					throw new UnexpectedException("Unexptected genericInfo.classArguments.length");
-				}
-				Class<?> mapKeyClass   = genericInfo.classArguments[0];
-											
-				String mapKeyClassName   = mapKeyClass.getTypeName();
-				
-//				logger.info("mapKeyClassName   {}", mapKeyClassName);
-//				logger.info("mapValueClassName {}", mapValueClassName);
-				
-				if (!mapKeyClassName.equals("java.lang.String")) {
-					logger.error("Unexptected keyTypeName {}", mapKeyClassName);
-					throw new UnexpectedException("Unexptected keyTypeName");
-				}
+			// primitive field is written without boxing
+			switch(fieldInfo.type) {
+			case "double":
+				gen.write(fieldName, fieldInfo.getDouble(o));
+				continue;
+			case "long":
+				gen.write(fieldName, fieldInfo.getLong(o));
+				continue;
+			case "int":
+				gen.write(fieldName, fieldInfo.getInt(o));
+				continue;
+			case "boolean":
+				gen.write(fieldName, fieldInfo.getBoolean(o));
+				continue;
+			default:
+				break;
+			}
+			
+			Object fieldValue = fieldInfo.get(o);
+			
+			if (fieldInfo.isMap) {
+				fieldInfo.checkMap();
 				
 				@SuppressWarnings("unchecked")
 				Map<String, Object> map = (Map<String, Object>)fieldValue;
@@ -721,7 +1504,7 @@ public final class JSON {
 	
 	/*
 
-	private static void toJSONStringList(JsonGenerator gen, Object o, String name) throws IllegalArgumentException, IllegalAccessException {
+	private static void toJSONStringList(JsonGenerator gen, Object o, String name) {
 		if (o == null) {
 			if (name == null) {
 				gen.writeNull();
@@ -749,7 +1532,7 @@ public final class JSON {
 	}
 
 	 */
-	private static void toJSONStringVariable(JsonGenerator gen, Object o, String name) throws IllegalArgumentException, IllegalAccessException {
+	private static void toJSONStringVariable(JsonGenerator gen, Object o, String name) {
 		if (o == null) {
 			if (name == null) {
 				gen.writeNull();
@@ -796,7 +1579,7 @@ public final class JSON {
 		simpleTypeSet.add(Float.TYPE.getName());
 		simpleTypeSet.add(Float.class.getName());
 	}
-	private static void toJSONStringSimpleType(JsonGenerator gen, Object o, String name) throws IllegalArgumentException, IllegalAccessException {
+	private static void toJSONStringSimpleType(JsonGenerator gen, Object o, String name) {
 		String clazzName = o.getClass().getName();
 
 		switch(clazzName) {
@@ -848,22 +1631,141 @@ public final class JSON {
 		}
 	}
 
-	private static void toJSONStringVariable(JsonGenerator gen, Object o) throws IllegalArgumentException, IllegalAccessException {
+	private static void toJSONStringVariable(JsonGenerator gen, Object o) {
 		toJSONStringVariable(gen, o, null);
 	}
 	
 	public static String toJSONString(Object object) {
 		StringWriter writer = new StringWriter();
-		
-		try (JsonGenerator gen = Json.createGenerator(writer)) {
+		write(object, writer);
+		return writer.toString();
+	}
+	
+	//
+	// Streaming write -- JsonGenerator writes to writer as it goes, no intermediate String of whole document.
+	// OutputStream is written in UTF-8. Writer and OutputStream are closed at end.
+	//
+	public static final int BUFFER_SIZE = 64 * 1024;
+	
+	static Writer getWriter(OutputStream os, int bufferSize) {
+		return new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), bufferSize);
+	}
+	
+	public static void write(Object object, Writer writer) {
+		try (JsonGenerator gen = generatorFactory.createGenerator(writer)) {
 			toJSONStringVariable(gen, object);
-		} catch (IllegalArgumentException | IllegalAccessException e) {
+		}
+	}
+	public static void write(Object object, OutputStream os, int bufferSize) {
+		write(object, getWriter(os, bufferSize));
+	}
+	public static void write(Object object, OutputStream os) {
+		write(object, os, BUFFER_SIZE);
+	}
+	
+	// Element is written one by one. Iterable can be lazy, so whole list need not be in memory.
+	public static void writeList(Iterable<?> iterable, Writer writer) {
+		try (JsonGenerator gen = generatorFactory.createGenerator(writer)) {
+			gen.writeStartArray();
+			for(Object e: iterable) {
+				toJSONStringVariable(gen, e);
+			}
+			gen.writeEnd();
+		}
+	}
+	public static void writeList(Iterable<?> iterable, OutputStream os, int bufferSize) {
+		writeList(iterable, getWriter(os, bufferSize));
+	}
+	public static void writeList(Iterable<?> iterable, OutputStream os) {
+		writeList(iterable, os, BUFFER_SIZE);
+	}
+	
+	//
+	// Write JSON Lines -- each object is written as one line. Use try-with-resources.
+	//
+	public static final class LineWriter implements AutoCloseable {
+		private Writer bw;
+		
+		private LineWriter(Writer writer) {
+			bw = (writer instanceof BufferedWriter) ? writer : new BufferedWriter(writer, BUFFER_SIZE);
+		}
+		
+		private void checkOpen() {
+			// Sanity check
+			if (bw == null) {
+				logger.error("writer is closed");
+				throw new UnexpectedException("writer is closed");
+			}
+		}
+		
+		public void write(Object object) {
+			checkOpen();
+			// JsonGenerator.close() closes its writer, so give the generator a writer that doesn't close bw
+			Writer shield = new FilterWriter(bw) {
+				@Override
+				public void close() {
+					// Do nothing
+				}
+			};
+			try {
+				try (JsonGenerator gen = generatorFactory.createGenerator(shield)) {
+					toJSONStringVariable(gen, object);
+				}
+				bw.write('\n');
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			}
+		}
+		public void write(Iterable<?> iterable) {
+			for(Object e: iterable) {
+				write(e);
+			}
+		}
+		public void flush() {
+			checkOpen();
+			try {
+				bw.flush();
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			}
+		}
+		@Override
+		public void close() {
+			if (bw == null) return;
+			try {
+				bw.close();
+			} catch (IOException e) {
+				String exceptionName = e.getClass().getSimpleName();
+				logger.error("{} {}", exceptionName, e);
+				throw new UnexpectedException(exceptionName, e);
+			} finally {
+				bw = null;
+			}
+		}
+	}
+	
+	public static LineWriter writeLines(Writer writer) {
+		return new LineWriter(writer);
+	}
+	// Append to existing file. File is created if not exists.
+	public static LineWriter appendLines(Path path) {
+		try {
+			// Create parent folder if not exists
+			Path parent = path.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			
+			return new LineWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+		} catch (IOException e) {
 			String exceptionName = e.getClass().getSimpleName();
 			logger.error("{} {}", exceptionName, e);
 			throw new UnexpectedException(exceptionName, e);
 		}
-	
-		return writer.toString();
 	}
 
 }
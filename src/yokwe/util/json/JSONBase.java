@@ -1,7 +1,11 @@
 package yokwe.util.json;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -79,17 +83,18 @@ public class JSONBase {
 	protected JSONBase(JsonObject jsonObject) {
 		try {
 			ClassInfo iexInfo = ClassInfo.get(this);
-			// Sanity check
+			// Sanity check -- counted in schema drift report of current thread
+			SchemaDrift.Report report = SchemaDrift.current();
 			for(ClassInfo.FieldInfo fieldInfo: iexInfo.fieldInfos) {
 				if (fieldInfo.ignoreField)                      continue;
 				if (jsonObject.containsKey(fieldInfo.jsonName)) continue;
 				// jsonObject doesn't contains field named fieldInfo.jsonName
-				logger.warn("Missing json field  {}  {}  {}", iexInfo.clazzName, fieldInfo.jsonName, jsonObject.keySet());
+				report.count(fieldInfo.missingKey);
 			}
 			for(String jsonKey: jsonObject.keySet()) {
 				if (iexInfo.fieldNameSet.contains(jsonKey)) continue;
 				// this class doesn't contains field named jsonKey
-				logger.warn("Unknown json field  {}  {}  {}", iexInfo.clazzName, jsonKey, iexInfo.fieldNameSet);
+				report.unknown(iexInfo.clazzName, jsonKey);
 			}
 			
 			for(ClassInfo.FieldInfo fieldInfo: iexInfo.fieldInfos) {
@@ -137,7 +142,7 @@ public class JSONBase {
 				// If field is null, assign default value
 				if (o == null) {
 					if (!fieldInfo.ignoreField) {
-						logger.warn("Assign default value  {} {} {}", iexInfo.clazzName, fieldInfo.name, fieldInfo.type);
+						report.count(fieldInfo.defaultKey);
 					}
 					setValue(fieldInfo);
 				}
@@ -165,7 +170,7 @@ public class JSONBase {
 			break;
 		case "java.lang.String":
 			// To handle irregular case in Symbols, add this code. Value of iexId in Symbols can be number or String.
-			fieldInfo.field.set(this, jsonNumber.toString());
+			fieldInfo.field.set(this, fieldInfo.intern(jsonNumber.toString()));
 			break;
 		case "java.time.LocalDateTime":
 			fieldInfo.field.set(this, getLocalDateTimeFromMilli(jsonNumber.longValue()));
@@ -178,7 +183,7 @@ public class JSONBase {
 	private void setValue(ClassInfo.FieldInfo fieldInfo, JsonString jsonString) throws IllegalArgumentException, IllegalAccessException {
 		switch(fieldInfo.type) {
 		case "java.lang.String":
-			fieldInfo.field.set(this, jsonString.getString());
+			fieldInfo.field.set(this, fieldInfo.intern(jsonString.getString()));
 			break;
 		case "double":
 			fieldInfo.field.set(this, Double.valueOf((jsonString.getString().length() == 0) ? "0" : jsonString.getString()));
@@ -278,7 +283,7 @@ public class JSONBase {
 				JsonValue jsonValue = jsonArray.get(i);
 				switch(jsonValue.getValueType()) {
 				case STRING:
-					value[i] = jsonArray.getString(i);
+					value[i] = fieldInfo.intern(jsonArray.getString(i));
 					break;
 				default:
 					logger.error("Unexpected json array element type {} {}", jsonValue.getValueType().toString(), toString());
@@ -498,94 +503,34 @@ public class JSONBase {
 		}
 	}
 
-	public static <E extends JSONBase> E getObject(String url, Class<E> clazz) {
-		ClassInfo classInfo = ClassInfo.get(clazz);
-
-		HttpUtil.Result result = HttpUtil.getInstance().download(url);
-		if (result.result == null) {
-			logger.error("result.result == null");
-			throw new UnexpectedException("result.result == null");
-		}
-		
-		String jsonString = result.result;
-//		logger.info("jsonString = {}", jsonString);
-
-		try (JsonReader reader = Json.createReader(new StringReader(jsonString))) {
-			// Assume result is only one object
-			JsonObject arg = reader.readObject();
-			@SuppressWarnings("unchecked")
-			E ret = (E)classInfo.construcor.newInstance(arg);
-			return ret;
-		} catch (IllegalAccessException | InstantiationException | IllegalArgumentException | InvocationTargetException | SecurityException e) {
-			String exceptionName = e.getClass().getSimpleName();
-			logger.error("{} {}", exceptionName, e);
-			throw new UnexpectedException(exceptionName, e);
+	// Body of response is parsed as bytes without decoding to String. Encoding of json (UTF-8, UTF-16 or UTF-32) is detected by parser.
+	private static byte[] download(String url) {
+		HttpUtil.Result result = HttpUtil.getInstance().withRawData(true).download(url);
+		if (result.rawData == null) {
+			logger.error("result.rawData == null");
+			throw new UnexpectedException("result.rawData == null");
 		}
+		return result.rawData;
+	}
+	
+	public static <E extends JSONBase> E getObject(String url, Class<E> clazz) {
+		return getInstance(clazz, download(url));
 	}
 
 	public static <E extends JSONBase> List<E> getArray(String url, Class<E> clazz) {
-		ClassInfo classInfo = ClassInfo.get(clazz);
-
-		HttpUtil.Result result = HttpUtil.getInstance().download(url);
-		if (result.result == null) {
-			logger.error("result.result == null");
-			throw new UnexpectedException("result.result == null");
-		}
-		
-		String jsonString = result.result;
-//		logger.info("jsonString = {}", jsonString);
-		
-		try (JsonReader reader = Json.createReader(new StringReader(jsonString))) {
-			// Assume result is array
-			JsonArray jsonArray = reader.readArray();
-			
-			int jsonArraySize = jsonArray.size();
-			List<E> ret = new ArrayList<>(jsonArraySize);
-			
-			for(int i = 0; i < jsonArraySize; i++) {
-				JsonValue jsonValue = jsonArray.get(i);
-				ValueType valueType = jsonValue.getValueType();
-				switch (valueType) {
-				case OBJECT:
-				{
-					JsonObject arg = jsonValue.asJsonObject();
-					@SuppressWarnings("unchecked")
-					E e = (E)classInfo.construcor.newInstance(arg);
-					ret.add(e);
-				}
-					break;
-				case NULL:
-					// Skip NULL
-					break;
-				default:
-					logger.info("Unexpected valueType  {}  {}  {}", i, valueType, jsonValue);
-					throw new UnexpectedException("Unexpected valueType");
-				}
-			}
-			
-			return ret;
-		} catch (IllegalAccessException | InstantiationException | IllegalArgumentException | InvocationTargetException | SecurityException e) {
-			String exceptionName = e.getClass().getSimpleName();
-			logger.error("{} {}", exceptionName, e);
-			throw new UnexpectedException(exceptionName, e);
-		}
+		return getList(clazz, download(url));
 	}
 
 	public static <E extends JSONBase> List<List<E>> getArrayArray(String url, Class<E> clazz) {
 		ClassInfo classInfo = ClassInfo.get(clazz);
 
-		HttpUtil.Result result = HttpUtil.getInstance().download(url);
-		if (result.result == null) {
-			logger.error("result.result == null");
-			throw new UnexpectedException("result.result == null");
-		}
-		
-		String jsonString = result.result;
-//		logger.info("jsonString = {}", jsonString);
+		byte[] body = download(url);
 		
 		List<List<E>> ret = new ArrayList<>();
 		
-		try (JsonReader reader = Json.createReader(new StringReader(jsonString))) {
+		// report is current report of this thread while constructor of element runs
+		SchemaDrift.Report report = SchemaDrift.open(clazz.getName());
+		try (JsonReader reader = Json.createReader(new ByteArrayInputStream(body))) {
 			// Assume result is array in array
 			JsonArray jsonArray     = reader.readArray();
 			int       jsonArraySize = jsonArray.size();
@@ -611,6 +556,8 @@ public class JSONBase {
 			String exceptionName = e.getClass().getSimpleName();
 			logger.error("{} {}", exceptionName, e);
 			throw new UnexpectedException(exceptionName, e);
+		} finally {
+			report.close();
 		}
 	}
 
@@ -825,7 +772,12 @@ public class JSONBase {
 	
 	public String toJSONString() {
 		StringWriter writer = new StringWriter();
-		
+		write(writer);
+		return writer.toString();
+	}
+	
+	// Streaming write. OutputStream is written in UTF-8. Writer and OutputStream are closed at end.
+	public void write(Writer writer) {
 		try (JsonGenerator gen = Json.createGenerator(writer)) {
 			toJSONStringVariable(gen, this);
 		} catch (IllegalArgumentException | IllegalAccessException e) {
@@ -833,13 +785,24 @@ public class JSONBase {
 			logger.error("{} {}", exceptionName, e);
 			throw new UnexpectedException(exceptionName, e);
 		}
-	
-		return writer.toString();
+	}
+	public void write(OutputStream os) {
+		write(JSON.getWriter(os, JSON.BUFFER_SIZE));
 	}
 	
 	public static <E extends JSONBase> E getInstance(Class<E> clazz, String jsonString) {
+		return getInstance(clazz, Json.createReader(new StringReader(jsonString)));
+	}
+	public static <E extends JSONBase> E getInstance(Class<E> clazz, byte[] jsonBytes) {
+		return getInstance(clazz, Json.createReader(new ByteArrayInputStream(jsonBytes)));
+	}
+	public static <E extends JSONBase> E getInstance(Class<E> clazz, InputStream is) {
+		return getInstance(clazz, Json.createReader(is));
+	}
+	private static <E extends JSONBase> E getInstance(Class<E> clazz, JsonReader jsonReader) {
 		ClassInfo classInfo = ClassInfo.get(clazz);
-		try (JsonReader reader = Json.createReader(new StringReader(jsonString))) {
+		SchemaDrift.Report report = SchemaDrift.open(clazz.getName());
+		try (JsonReader reader = jsonReader) {
 			// Assume result is only one object
 			JsonObject arg = reader.readObject();
 			@SuppressWarnings("unchecked")
@@ -849,12 +812,24 @@ public class JSONBase {
 			String exceptionName = e.getClass().getSimpleName();
 			logger.error("{} {}", exceptionName, e);
 			throw new UnexpectedException(exceptionName, e);
+		} finally {
+			report.close();
 		}
 	}
 	
 	public static <E extends JSONBase> List<E> getList(Class<E> clazz, String jsonString) {
+		return getList(clazz, Json.createReader(new StringReader(jsonString)));
+	}
+	public static <E extends JSONBase> List<E> getList(Class<E> clazz, byte[] jsonBytes) {
+		return getList(clazz, Json.createReader(new ByteArrayInputStream(jsonBytes)));
+	}
+	public static <E extends JSONBase> List<E> getList(Class<E> clazz, InputStream is) {
+		return getList(clazz, Json.createReader(is));
+	}
+	private static <E extends JSONBase> List<E> getList(Class<E> clazz, JsonReader jsonReader) {
 		ClassInfo classInfo = ClassInfo.get(clazz);
-		try (JsonReader reader = Json.createReader(new StringReader(jsonString))) {
+		SchemaDrift.Report report = SchemaDrift.open(clazz.getName());
+		try (JsonReader reader = jsonReader) {
 			// Assume result is array
 			JsonArray jsonArray = reader.readArray();
 			
@@ -887,6 +862,8 @@ public class JSONBase {
 			String exceptionName = e.getClass().getSimpleName();
 			logger.error("{} {}", exceptionName, e);
 			throw new UnexpectedException(exceptionName, e);
+		} finally {
+			report.close();
 		}
 	}
 
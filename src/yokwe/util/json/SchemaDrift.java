@@ -0,0 +1,172 @@
+package yokwe.util.json;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+//
+// Aggregate schema drift of json -- missing field, unknown field and default value -- per class and field.
+// Each parse has a Report. Report counts events and logs one summary at close, then adds its counts to total.
+// Event without report, like calling JSONBase(JsonObject) directly, is added to total and logged only at first time.
+//
+public final class SchemaDrift {
+	static final Logger logger = LoggerFactory.getLogger(SchemaDrift.class);
+	
+	public enum Kind {
+		MISSING, // field of class doesn't appear in json object
+		UNKNOWN, // key of json object is not field of class
+		DEFAULT, // default value is assigned to missing field
+	}
+	
+	public static final class Key implements Comparable<Key> {
+		public final Kind   kind;
+		public final String clazzName;
+		public final String fieldName;
+		
+		public Key(Kind kind, String clazzName, String fieldName) {
+			this.kind      = kind;
+			this.clazzName = clazzName;
+			this.fieldName = fieldName;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			Key that = (Key)o;
+			return kind == that.kind && clazzName.equals(that.clazzName) && fieldName.equals(that.fieldName);
+		}
+		@Override
+		public int hashCode() {
+			return Objects.hash(kind, clazzName, fieldName);
+		}
+		@Override
+		public int compareTo(Key that) {
+			int ret = this.clazzName.compareTo(that.clazzName);
+			if (ret == 0) ret = this.fieldName.compareTo(that.fieldName);
+			if (ret == 0) ret = this.kind.compareTo(that.kind);
+			return ret;
+		}
+		@Override
+		public String toString() {
+			return String.format("%s %s.%s", kind, clazzName, fieldName);
+		}
+	}
+	
+	private static final ConcurrentMap<Key, LongAdder> total = new ConcurrentHashMap<>();
+	
+	private static LongAdder getAdder(ConcurrentMap<Key, LongAdder> map, Key key) {
+		LongAdder ret = map.get(key);
+		return (ret != null) ? ret : map.computeIfAbsent(key, o -> new LongAdder());
+	}
+	private static Map<Key, Long> toMap(ConcurrentMap<Key, LongAdder> map) {
+		Map<Key, Long> ret = new TreeMap<>();
+		for(Map.Entry<Key, LongAdder> e: map.entrySet()) {
+			ret.put(e.getKey(), e.getValue().sum());
+		}
+		return ret;
+	}
+	
+	public static class Report implements AutoCloseable {
+		private final String                        name;
+		private final ConcurrentMap<Key, LongAdder> counts;
+		private final Report                        outer; // report of same thread before open
+		private boolean                             closed;
+		
+		private Report(String name, Report outer) {
+			this.name   = name;
+			this.counts = new ConcurrentHashMap<>();
+			this.outer  = outer;
+			this.closed = false;
+		}
+		
+		public void count(Key key) {
+			getAdder(counts, key).increment();
+		}
+		public void unknown(String clazzName, String jsonKey) {
+			count(new Key(Kind.UNKNOWN, clazzName, jsonKey));
+		}
+		
+		public Map<Key, Long> getCounts() {
+			return toMap(counts);
+		}
+		
+		@Override
+		public void close() {
+			if (closed) return;
+			closed = true;
+			
+			if (current.get() == this) {
+				if (outer == null) {
+					current.remove();
+				} else {
+					current.set(outer);
+				}
+			}
+			
+			if (counts.isEmpty()) return;
+			
+			Map<Key, Long> map = getCounts();
+			for(Map.Entry<Key, Long> e: map.entrySet()) {
+				getAdder(total, e.getKey()).add(e.getValue());
+			}
+			logger.warn("Schema drift  {}  {}", name, map);
+		}
+	}
+	
+	private static final Report UNSCOPED = new Report("unscoped", null) {
+		@Override
+		public void count(Key key) {
+			LongAdder adder = total.get(key);
+			if (adder == null) {
+				adder = new LongAdder();
+				LongAdder old = total.putIfAbsent(key, adder);
+				if (old == null) {
+					logger.warn("Schema drift  {}", key);
+				} else {
+					adder = old;
+				}
+			}
+			adder.increment();
+		}
+		@Override
+		public void close() {
+			// Do nothing
+		}
+	};
+	
+	private static final ThreadLocal<Report> current = new ThreadLocal<>();
+	
+	// Report owned by caller. Can be used from any thread.
+	public static Report create(String name) {
+		return new Report(name, null);
+	}
+	// Report of current thread until close. Used by code that can't take report as parameter.
+	public static Report open(String name) {
+		Report ret = new Report(name, current.get());
+		current.set(ret);
+		return ret;
+	}
+	public static Report current() {
+		Report ret = current.get();
+		return (ret != null) ? ret : UNSCOPED;
+	}
+	
+	// Counts of all closed report and unscoped event
+	public static Map<Key, Long> getCounts() {
+		return toMap(total);
+	}
+	public static long getCount(Kind kind, String clazzName, String fieldName) {
+		LongAdder adder = total.get(new Key(kind, clazzName, fieldName));
+		return (adder == null) ? 0 : adder.sum();
+	}
+	public static void reset() {
+		total.clear();
+	}
+}